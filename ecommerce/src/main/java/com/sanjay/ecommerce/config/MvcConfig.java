@@ -1,18 +1,51 @@
 package com.sanjay.ecommerce.config;
 
+import com.sanjay.ecommerce.security.CurrentUserArgumentResolver;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import java.time.Duration;
+import java.util.List;
 
 @Configuration
 public class MvcConfig implements WebMvcConfigurer {
 
+    // Names written by the build-time asset stage: <name>.<10 hex digits>.<ext>
+    private static final String HASHED_JS = "/js/{file:[\\w-]+\\.[0-9a-f]{10}\\.js}";
+    private static final String HASHED_CSS = "/css/{file:[\\w-]+\\.[0-9a-f]{10}\\.css}";
+
+    @Value("${uploads.dir:uploads}")
+    private String uploadsDir;
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Serve uploaded files
+        // Serve uploaded files; product images under /uploads/products/ are answered by UploadController
         registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:uploads/");
+                .addResourceLocations("file:" + uploadsDir + "/", "file:src/main/resources/static/uploads/");
+
+        // Fingerprinted assets never change under a given name, so they can be cached for a year.
+        // The encoded resolver picks the prebuilt .br or .gz sibling from Accept-Encoding.
+        CacheControl immutable = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+        registry.addResourceHandler(HASHED_JS)
+                .addResourceLocations("classpath:/static/js/")
+                .setCacheControl(immutable)
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
+        registry.addResourceHandler(HASHED_CSS)
+                .addResourceLocations("classpath:/static/css/")
+                .setCacheControl(immutable)
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new CurrentUserArgumentResolver());
     }
 
     @Override
@@ -20,4 +53,4 @@ public class MvcConfig implements WebMvcConfigurer {
         // Forward root to index.html
         registry.addViewController("/").setViewName("forward:/index.html");
     }
-}
\ No newline at end of file
+}
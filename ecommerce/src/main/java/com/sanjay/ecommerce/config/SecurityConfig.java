@@ -1,6 +1,7 @@
 package com.sanjay.ecommerce.config;
 
 import com.sanjay.ecommerce.security.JwtAuthFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -36,8 +37,11 @@ public class SecurityConfig {
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Completing a streamed response (order events) re-dispatches without the JWT
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // Static resources
                         .requestMatchers("/", "/index.html", "/*.html", "/css/**", "/js/**", "/admin/**").permitAll()
+                        .requestMatchers("/uploads/**").permitAll()
                         // API endpoints
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/products/**").permitAll()
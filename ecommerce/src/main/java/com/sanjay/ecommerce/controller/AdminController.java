@@ -1,12 +1,23 @@
 package com.sanjay.ecommerce.controller;
 
+import com.sanjay.ecommerce.dto.ImportResultDTO;
+import com.sanjay.ecommerce.dto.SalesPointDTO;
 import com.sanjay.ecommerce.model.Order;
 import com.sanjay.ecommerce.model.Product;
 import com.sanjay.ecommerce.service.AdminService;
 import com.sanjay.ecommerce.service.OrderService;
+import com.sanjay.ecommerce.service.ProductBulkService;
+import com.sanjay.ecommerce.service.ProductImageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -18,6 +29,8 @@ public class AdminController {
 
     private final AdminService adminService;
     private final OrderService orderService;
+    private final ProductImageService productImageService;
+    private final ProductBulkService productBulkService;
 
     @GetMapping("/products")
     public ResponseEntity<List<Product>> getAllProducts() {
@@ -31,12 +44,42 @@ public class AdminController {
         return ResponseEntity.ok(created);
     }
 
+    // Raw request body, read as it arrives: CSV (with a header row) or JSON Lines
+    @PostMapping("/products/import")
+    public ResponseEntity<ImportResultDTO> importProducts(
+            @RequestParam(required = false) String format,
+            HttpServletRequest request
+    ) throws IOException {
+        String contentType = request.getContentType();
+        String resolved = format != null ? format
+                : contentType != null && contentType.contains("json") ? "jsonl" : "csv";
+        ImportResultDTO result = productBulkService.importProducts(request.getInputStream(), resolved);
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/products/export")
+    public void exportProducts(
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response
+    ) throws IOException {
+        boolean jsonl = "jsonl".equals(format);
+        response.setContentType(jsonl ? "application/x-ndjson;charset=UTF-8" : "text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products." + (jsonl ? "jsonl" : "csv") + "\"");
+        productBulkService.exportProducts(response.getOutputStream(), format);
+    }
+
     @PutMapping("/products/{id}")
     public ResponseEntity<Product> updateProduct(@PathVariable Long id, @RequestBody Product product) {
         Product updated = adminService.updateProduct(id, product);
         return ResponseEntity.ok(updated);
     }
 
+    @PostMapping("/products/{id}/image")
+    public ResponseEntity<Product> uploadProductImage(@PathVariable Long id, @RequestParam("file") MultipartFile file) {
+        Product updated = productImageService.uploadImage(id, file);
+        return ResponseEntity.ok(updated);
+    }
+
     @DeleteMapping("/products/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
         adminService.deleteProduct(id);
@@ -64,4 +107,26 @@ public class AdminController {
         Map<String, Object> analytics = adminService.getAnalytics();
         return ResponseEntity.ok(analytics);
     }
+
+    // Best sellers over a sliding window: hour, day or week
+    @GetMapping("/analytics/top-products")
+    public ResponseEntity<List<Map<String, Object>>> getTopProducts(
+            @RequestParam(defaultValue = "day") String window,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        List<Map<String, Object>> topProducts = adminService.getTopProducts(window, limit);
+        return ResponseEntity.ok(topProducts);
+    }
+
+    // Orders, revenue and units per minute, hour or day in [from, to), for one category or all
+    @GetMapping("/analytics/series")
+    public ResponseEntity<List<SalesPointDTO>> getSalesSeries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) Long categoryId
+    ) {
+        List<SalesPointDTO> series = adminService.getSalesSeries(from, to, granularity, categoryId);
+        return ResponseEntity.ok(series);
+    }
 }
\ No newline at end of file
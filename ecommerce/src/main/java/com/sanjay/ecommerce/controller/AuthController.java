@@ -6,12 +6,11 @@ import com.sanjay.ecommerce.model.User;
 import com.sanjay.ecommerce.repository.UserRepository;
 import com.sanjay.ecommerce.repository.CartRepository;
 import com.sanjay.ecommerce.security.JwtUtil;
+import com.sanjay.ecommerce.service.AnalyticsCounters;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
@@ -25,8 +24,8 @@ public class AuthController {
     private final CartRepository cartRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
-    private final UserDetailsService userDetailsService;
     private final JwtUtil jwtUtil;
+    private final AnalyticsCounters analyticsCounters;
 
     @PostMapping("/signup")
     public ResponseEntity<?> signup(@RequestBody SignupRequest request) {
@@ -43,6 +42,7 @@ public class AuthController {
                 .build();
 
         user = userRepository.save(user);
+        analyticsCounters.userCreated();
 
         // Create cart for user
         Cart cart = Cart.builder().user(user).build();
@@ -61,11 +61,9 @@ public class AuthController {
             return ResponseEntity.badRequest().body("Invalid email or password");
         }
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(request.getEmail());
-        String token = jwtUtil.generateToken(userDetails);
-
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        String token = jwtUtil.generateToken(user);
 
         AuthResponse response = AuthResponse.builder()
                 .token(token)
@@ -95,8 +93,7 @@ public class AuthController {
             return ResponseEntity.badRequest().body("Access denied. Admin only.");
         }
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(request.getEmail());
-        String token = jwtUtil.generateToken(userDetails);
+        String token = jwtUtil.generateToken(user);
 
         AuthResponse response = AuthResponse.builder()
                 .token(token)
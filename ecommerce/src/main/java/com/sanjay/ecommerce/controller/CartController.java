@@ -1,12 +1,11 @@
 package com.sanjay.ecommerce.controller;
 
-import com.sanjay.ecommerce.model.Cart;
-import com.sanjay.ecommerce.model.User;
-import com.sanjay.ecommerce.repository.UserRepository;
+import com.sanjay.ecommerce.dto.CartDTO;
+import com.sanjay.ecommerce.dto.StockHoldDTO;
+import com.sanjay.ecommerce.security.CurrentUser;
 import com.sanjay.ecommerce.service.CartService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import java.util.Map;
 
@@ -17,52 +16,54 @@ import java.util.Map;
 public class CartController {
 
     private final CartService cartService;
-    private final UserRepository userRepository;
 
     @GetMapping
-    public ResponseEntity<Cart> getCart(Authentication auth) {
-        User user = userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Cart cart = cartService.getUserCart(user.getId());
+    public ResponseEntity<CartDTO> getCart(@CurrentUser Long userId) {
+        CartDTO cart = cartService.getUserCart(userId);
         return ResponseEntity.ok(cart);
     }
 
     @PostMapping("/add")
-    public ResponseEntity<Cart> addToCart(@RequestBody Map<String, Object> request, Authentication auth) {
-        User user = userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public ResponseEntity<CartDTO> addToCart(@RequestBody Map<String, Object> request, @CurrentUser Long userId) {
         Long productId = Long.valueOf(request.get("productId").toString());
         Integer quantity = Integer.valueOf(request.get("quantity").toString());
-        Cart cart = cartService.addToCart(user.getId(), productId, quantity);
+        CartDTO cart = cartService.addToCart(userId, productId, quantity);
         return ResponseEntity.ok(cart);
     }
 
     @PutMapping("/update/{itemId}")
-    public ResponseEntity<Cart> updateCartItem(
+    public ResponseEntity<CartDTO> updateCartItem(
             @PathVariable Long itemId,
             @RequestBody Map<String, Integer> request,
-            Authentication auth
+            @CurrentUser Long userId
     ) {
-        User user = userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
         Integer quantity = request.get("quantity");
-        Cart cart = cartService.updateCartItem(user.getId(), itemId, quantity);
+        CartDTO cart = cartService.updateCartItem(userId, itemId, quantity);
         return ResponseEntity.ok(cart);
     }
 
     @DeleteMapping("/remove/{itemId}")
-    public ResponseEntity<Cart> removeFromCart(@PathVariable Long itemId, Authentication auth) {
-        User user = userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Cart cart = cartService.removeFromCart(user.getId(), itemId);
+    public ResponseEntity<CartDTO> removeFromCart(@PathVariable Long itemId, @CurrentUser Long userId) {
+        CartDTO cart = cartService.removeFromCart(userId, itemId);
         return ResponseEntity.ok(cart);
     }
 
+    // Called when the shopper proceeds to checkout; the hold lapses on its own if they never order
+    @PostMapping("/hold")
+    public ResponseEntity<StockHoldDTO> holdCart(@CurrentUser Long userId) {
+        StockHoldDTO hold = cartService.holdCart(userId);
+        return ResponseEntity.ok(hold);
+    }
+
+    @DeleteMapping("/hold")
+    public ResponseEntity<Void> releaseHold(@CurrentUser Long userId) {
+        cartService.releaseHold(userId);
+        return ResponseEntity.ok().build();
+    }
+
     @DeleteMapping("/clear")
-    public ResponseEntity<Void> clearCart(Authentication auth) {
-        User user = userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        cartService.clearCart(user.getId());
+    public ResponseEntity<Void> clearCart(@CurrentUser Long userId) {
+        cartService.clearCart(userId);
         return ResponseEntity.ok().build();
     }
 }
\ No newline at end of file
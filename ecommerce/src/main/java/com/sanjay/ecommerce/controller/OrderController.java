@@ -1,15 +1,16 @@
 package com.sanjay.ecommerce.controller;
 
 import com.sanjay.ecommerce.dto.CheckoutRequest;
-import com.sanjay.ecommerce.model.Order;
-import com.sanjay.ecommerce.model.User;
-import com.sanjay.ecommerce.repository.UserRepository;
+import com.sanjay.ecommerce.dto.CursorPage;
+import com.sanjay.ecommerce.dto.OrderDTO;
+import com.sanjay.ecommerce.security.CurrentUser;
+import com.sanjay.ecommerce.service.IdempotencyStore;
 import com.sanjay.ecommerce.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -18,27 +19,38 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
-    private final UserRepository userRepository;
+    private final IdempotencyStore idempotencyStore;
 
     @PostMapping("/checkout")
-    public ResponseEntity<Order> checkout(@RequestBody CheckoutRequest request, Authentication auth) {
-        User user = userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Order order = orderService.placeOrder(user.getId(), request.getAddressId(), request.getPaymentMethod());
-        return ResponseEntity.ok(order);
+    public ResponseEntity<OrderDTO> checkout(@RequestBody CheckoutRequest request, @CurrentUser Long userId,
+                                             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        // With a key, a retried checkout gets the first attempt's response instead of a second order
+        OrderDTO order = idempotencyKey == null
+                ? orderService.placeOrder(userId, request.getAddressId(), request.getPaymentMethod())
+                : idempotencyStore.execute(userId, idempotencyKey, request.fingerprint(), OrderDTO.class,
+                        () -> orderService.placeOrder(userId, request.getAddressId(), request.getPaymentMethod()));
+        // Accepted, not done: payment is still to come on /api/orders/{id}/events
+        return ResponseEntity.accepted().body(order);
     }
 
     @GetMapping
-    public ResponseEntity<List<Order>> getUserOrders(Authentication auth) {
-        User user = userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        List<Order> orders = orderService.getUserOrders(user.getId());
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<CursorPage<OrderDTO>> getUserOrders(
+            @CurrentUser Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        CursorPage<OrderDTO> page = orderService.getUserOrderPage(userId, cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter orderEvents(@PathVariable Long id, @CurrentUser Long userId) {
+        return orderService.subscribeToOrder(userId, id);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Order> getOrder(@PathVariable Long id) {
-        Order order = orderService.getOrderById(id);
+    public ResponseEntity<OrderDTO> getOrder(@PathVariable Long id, @CurrentUser Long userId) {
+        OrderDTO order = orderService.getUserOrder(userId, id);
         return ResponseEntity.ok(order);
     }
 }
\ No newline at end of file
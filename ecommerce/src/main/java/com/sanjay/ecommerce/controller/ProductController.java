@@ -1,11 +1,19 @@
 package com.sanjay.ecommerce.controller;
 
-import com.sanjay.ecommerce.model.Product;
+import com.sanjay.ecommerce.dto.CursorPage;
+import com.sanjay.ecommerce.dto.FacetsDTO;
+import com.sanjay.ecommerce.dto.ProductDTO;
+import com.sanjay.ecommerce.dto.SuggestionDTO;
 import com.sanjay.ecommerce.model.Category;
+import com.sanjay.ecommerce.service.CatalogVersions;
 import com.sanjay.ecommerce.service.ProductService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -14,40 +22,172 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class ProductController {
 
+    // Anonymous catalog reads may be served by shared caches and kept briefly past expiry while revalidating
+    private static final CacheControl CATALOG_CACHE = CacheControl.maxAge(Duration.ofSeconds(60))
+            .cachePublic()
+            .staleWhileRevalidate(Duration.ofMinutes(5));
+    private static final CacheControl PRODUCT_CACHE = CacheControl.maxAge(Duration.ofSeconds(30))
+            .cachePublic()
+            .staleWhileRevalidate(Duration.ofSeconds(60));
+
+    private static final CacheControl TRENDING_CACHE = CacheControl.maxAge(Duration.ofSeconds(30))
+            .cachePublic();
+
     private final ProductService productService;
 
     @GetMapping("/products")
-    public ResponseEntity<List<Product>> getAllProducts(
+    public ResponseEntity<List<ProductDTO>> getAllProducts(
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) String sortBy,
             @RequestParam(required = false) Double minPrice,
-            @RequestParam(required = false) Double maxPrice
+            @RequestParam(required = false) Double maxPrice,
+            WebRequest request
     ) {
-        List<Product> products = productService.filterAndSortProducts(categoryId, sortBy, minPrice, maxPrice);
-        return ResponseEntity.ok(products);
+        CatalogVersions.Stamp stamp = productService.getListingStamp();
+        String etag = productService.etag("products", stamp);
+        if (request.checkNotModified(etag, stamp.getModifiedAt())) {
+            return notModified(CATALOG_CACHE);
+        }
+        List<ProductDTO> products = productService.filterAndSortProducts(categoryId, sortBy, minPrice, maxPrice);
+        return cached(products, etag, stamp, CATALOG_CACHE);
+    }
+
+    @GetMapping("/products/facets")
+    public ResponseEntity<FacetsDTO> getFacets(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Integer minRating,
+            @RequestParam(required = false) Boolean inStock,
+            WebRequest request
+    ) {
+        CatalogVersions.Stamp stamp = productService.getFacetStamp();
+        String etag = productService.etag("facets", stamp);
+        if (request.checkNotModified(etag, stamp.getModifiedAt())) {
+            return notModified(CATALOG_CACHE);
+        }
+        FacetsDTO facets = productService.getFacets(categoryId, minPrice, maxPrice, minRating, inStock);
+        return cached(facets, etag, stamp, CATALOG_CACHE);
+    }
+
+    @GetMapping("/products/page")
+    public ResponseEntity<CursorPage<ProductDTO>> getProductPage(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        CursorPage<ProductDTO> page = productService.getProductPage(categoryId, sortBy, minPrice, maxPrice, cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/products/top-rated")
+    public ResponseEntity<List<ProductDTO>> getTopRatedProducts(
+            @RequestParam(defaultValue = "8") int limit,
+            WebRequest request
+    ) {
+        CatalogVersions.Stamp stamp = productService.getListingStamp();
+        String etag = productService.etag("top-rated", stamp);
+        if (request.checkNotModified(etag, stamp.getModifiedAt())) {
+            return notModified(CATALOG_CACHE);
+        }
+        List<ProductDTO> products = productService.getTopRatedProducts(limit);
+        return cached(products, etag, stamp, CATALOG_CACHE);
+    }
+
+    // Changes with every order, so it is only cached briefly and never revalidated by version
+    @GetMapping("/products/trending")
+    public ResponseEntity<List<ProductDTO>> getTrendingProducts(
+            @RequestParam(defaultValue = "day") String window,
+            @RequestParam(defaultValue = "8") int limit
+    ) {
+        List<ProductDTO> products = productService.getTrendingProducts(window, limit);
+        return ResponseEntity.ok()
+                .cacheControl(TRENDING_CACHE)
+                .body(products);
+    }
+
+    @GetMapping("/products/latest")
+    public ResponseEntity<List<ProductDTO>> getLatestProducts(
+            @RequestParam(defaultValue = "8") int limit,
+            WebRequest request
+    ) {
+        CatalogVersions.Stamp stamp = productService.getListingStamp();
+        String etag = productService.etag("latest", stamp);
+        if (request.checkNotModified(etag, stamp.getModifiedAt())) {
+            return notModified(CATALOG_CACHE);
+        }
+        List<ProductDTO> products = productService.getLatestProducts(limit);
+        return cached(products, etag, stamp, CATALOG_CACHE);
     }
 
     @GetMapping("/products/{id}")
-    public ResponseEntity<Product> getProduct(@PathVariable Long id) {
-        Product product = productService.getProductById(id);
-        return ResponseEntity.ok(product);
+    public ResponseEntity<ProductDTO> getProduct(@PathVariable Long id, WebRequest request) {
+        CatalogVersions.Stamp stamp = productService.getProductStamp(id);
+        String etag = productService.etag("product-" + id, stamp);
+        if (request.checkNotModified(etag, stamp.getModifiedAt())) {
+            return notModified(PRODUCT_CACHE);
+        }
+        ProductDTO product = productService.getProductById(id);
+        return cached(product, etag, stamp, PRODUCT_CACHE);
     }
 
     @GetMapping("/products/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String q) {
-        List<Product> products = productService.searchProducts(q);
+    public ResponseEntity<List<ProductDTO>> searchProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        List<ProductDTO> products = productService.searchProducts(q, page, size);
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping("/products/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "8") int limit
+    ) {
+        List<SuggestionDTO> suggestions = productService.suggest(prefix, limit);
+        return ResponseEntity.ok(suggestions);
+    }
+
     @GetMapping("/products/category/{categoryId}")
-    public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable Long categoryId) {
-        List<Product> products = productService.getProductsByCategory(categoryId);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductDTO>> getProductsByCategory(@PathVariable Long categoryId, WebRequest request) {
+        CatalogVersions.Stamp stamp = productService.getListingStamp();
+        String etag = productService.etag("category-" + categoryId, stamp);
+        if (request.checkNotModified(etag, stamp.getModifiedAt())) {
+            return notModified(CATALOG_CACHE);
+        }
+        List<ProductDTO> products = productService.getProductsByCategory(categoryId);
+        return cached(products, etag, stamp, CATALOG_CACHE);
     }
 
     @GetMapping("/categories")
-    public ResponseEntity<List<Category>> getAllCategories() {
+    public ResponseEntity<List<Category>> getAllCategories(WebRequest request) {
+        CatalogVersions.Stamp stamp = productService.getListingStamp();
+        String etag = productService.etag("categories", stamp);
+        if (request.checkNotModified(etag, stamp.getModifiedAt())) {
+            return notModified(CATALOG_CACHE);
+        }
         List<Category> categories = productService.getAllCategories();
-        return ResponseEntity.ok(categories);
+        return cached(categories, etag, stamp, CATALOG_CACHE);
+    }
+
+    // 304 answered from the version stamp alone: no repository call and no serialization.
+    // checkNotModified has already written the validators to the response.
+    private <T> ResponseEntity<T> notModified(CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .cacheControl(cacheControl)
+                .build();
+    }
+
+    private <T> ResponseEntity<T> cached(T body, String etag, CatalogVersions.Stamp stamp, CacheControl cacheControl) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .lastModified(stamp.getModifiedAt())
+                .cacheControl(cacheControl)
+                .body(body);
     }
 }
@@ -1,14 +1,13 @@
 package com.sanjay.ecommerce.controller;
 
-import com.sanjay.ecommerce.model.Review;
-import com.sanjay.ecommerce.model.User;
-import com.sanjay.ecommerce.repository.UserRepository;
+import com.sanjay.ecommerce.dto.CursorPage;
+import com.sanjay.ecommerce.dto.RatingSummaryDTO;
+import com.sanjay.ecommerce.dto.ReviewDTO;
+import com.sanjay.ecommerce.security.CurrentUser;
 import com.sanjay.ecommerce.service.ReviewService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -18,35 +17,45 @@ import java.util.Map;
 public class ReviewController {
 
     private final ReviewService reviewService;
-    private final UserRepository userRepository;
 
+    // Pages of a product's reviews: sort is recent, highest or lowest; stars keeps one rating, newest first
     @GetMapping("/product/{productId}")
-    public ResponseEntity<List<Review>> getProductReviews(@PathVariable Long productId) {
-        List<Review> reviews = reviewService.getProductReviews(productId);
-        return ResponseEntity.ok(reviews);
+    public ResponseEntity<CursorPage<ReviewDTO>> getProductReviews(
+            @PathVariable Long productId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Integer stars,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        CursorPage<ReviewDTO> page = reviewService.getProductReviews(productId, sort, stars, cursor, size);
+        return ResponseEntity.ok(page);
     }
 
-    @PostMapping
-    public ResponseEntity<Review> addReview(@RequestBody Map<String, Object> request, Authentication auth) {
-        User user = userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    // Average, count and reviews per star, kept up to date on every review write
+    @GetMapping("/product/{productId}/summary")
+    public ResponseEntity<RatingSummaryDTO> getRatingSummary(@PathVariable Long productId) {
+        RatingSummaryDTO summary = reviewService.getRatingSummary(productId);
+        return ResponseEntity.ok(summary);
+    }
 
+    @PostMapping
+    public ResponseEntity<ReviewDTO> addReview(@RequestBody Map<String, Object> request, @CurrentUser Long userId) {
         Long productId = Long.valueOf(request.get("productId").toString());
         Integer rating = Integer.valueOf(request.get("rating").toString());
         String comment = request.get("comment").toString();
 
-        Review review = reviewService.addReview(user.getId(), productId, rating, comment);
+        ReviewDTO review = reviewService.addReview(userId, productId, rating, comment);
         return ResponseEntity.ok(review);
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Review> updateReview(
+    public ResponseEntity<ReviewDTO> updateReview(
             @PathVariable Long id,
             @RequestBody Map<String, Object> request
     ) {
         Integer rating = Integer.valueOf(request.get("rating").toString());
         String comment = request.get("comment").toString();
-        Review review = reviewService.updateReview(id, rating, comment);
+        ReviewDTO review = reviewService.updateReview(id, rating, comment);
         return ResponseEntity.ok(review);
     }
 
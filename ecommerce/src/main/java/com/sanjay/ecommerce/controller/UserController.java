@@ -2,11 +2,10 @@ package com.sanjay.ecommerce.controller;
 
 import com.sanjay.ecommerce.model.Address;
 import com.sanjay.ecommerce.model.User;
+import com.sanjay.ecommerce.security.CurrentUser;
 import com.sanjay.ecommerce.service.UserService;
-import com.sanjay.ecommerce.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
 
@@ -17,36 +16,28 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
-    private final UserRepository userRepository;
 
     @GetMapping("/profile")
-    public ResponseEntity<User> getProfile(Authentication auth) {
-        User user = userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public ResponseEntity<User> getProfile(@CurrentUser Long userId) {
+        User user = userService.getUserById(userId);
         return ResponseEntity.ok(user);
     }
 
     @PutMapping("/profile")
-    public ResponseEntity<User> updateProfile(@RequestBody User updateData, Authentication auth) {
-        User user = userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        User updated = userService.updateProfile(user.getId(), updateData);
+    public ResponseEntity<User> updateProfile(@RequestBody User updateData, @CurrentUser Long userId) {
+        User updated = userService.updateProfile(userId, updateData);
         return ResponseEntity.ok(updated);
     }
 
     @GetMapping("/addresses")
-    public ResponseEntity<List<Address>> getAddresses(Authentication auth) {
-        User user = userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        List<Address> addresses = userService.getUserAddresses(user.getId());
+    public ResponseEntity<List<Address>> getAddresses(@CurrentUser Long userId) {
+        List<Address> addresses = userService.getUserAddresses(userId);
         return ResponseEntity.ok(addresses);
     }
 
     @PostMapping("/addresses")
-    public ResponseEntity<Address> addAddress(@RequestBody Address address, Authentication auth) {
-        User user = userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Address saved = userService.addAddress(user.getId(), address);
+    public ResponseEntity<Address> addAddress(@RequestBody Address address, @CurrentUser Long userId) {
+        Address saved = userService.addAddress(userId, address);
         return ResponseEntity.ok(saved);
     }
 
@@ -12,7 +12,7 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-class AddressDTO {
+public class AddressDTO {
     private Long id;
     private String fullName;
     private String phone;
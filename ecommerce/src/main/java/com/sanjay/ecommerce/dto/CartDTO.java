@@ -0,0 +1,18 @@
+package com.sanjay.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartDTO {
+    private Long id;
+    private List<CartItemDTO> items;
+    private BigDecimal totalPrice;
+}
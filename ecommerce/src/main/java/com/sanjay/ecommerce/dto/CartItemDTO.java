@@ -0,0 +1,19 @@
+package com.sanjay.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItemDTO {
+    // Cart item id to pass to update/remove (the product id when carts are kept in memory)
+    private Long id;
+    private ProductDTO product;
+    private Integer quantity;
+    private BigDecimal price;
+}
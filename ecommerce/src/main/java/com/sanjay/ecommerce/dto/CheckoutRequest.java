@@ -7,4 +7,9 @@ import lombok.Data;
 public class CheckoutRequest {
     private Long addressId;
     private Payment.PaymentMethod paymentMethod;
+
+    // Identifies the request behind an Idempotency-Key
+    public String fingerprint() {
+        return "addressId=" + addressId + ";paymentMethod=" + paymentMethod;
+    }
 }
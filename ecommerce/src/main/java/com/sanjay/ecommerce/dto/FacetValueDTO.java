@@ -0,0 +1,16 @@
+package com.sanjay.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetValueDTO {
+    private String value;
+    private String label;
+    private Integer count;
+}
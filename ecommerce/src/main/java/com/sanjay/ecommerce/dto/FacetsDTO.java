@@ -0,0 +1,19 @@
+package com.sanjay.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetsDTO {
+    private Integer total;
+    private List<FacetValueDTO> categories;
+    private List<FacetValueDTO> priceBands;
+    private List<FacetValueDTO> ratings;
+    private FacetValueDTO inStock;
+}
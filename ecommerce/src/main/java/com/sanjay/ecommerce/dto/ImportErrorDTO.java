@@ -0,0 +1,16 @@
+package com.sanjay.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportErrorDTO {
+    // 1-based line of the record in the uploaded file
+    private long line;
+    private String message;
+}
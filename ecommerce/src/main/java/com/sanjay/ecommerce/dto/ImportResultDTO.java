@@ -0,0 +1,21 @@
+package com.sanjay.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResultDTO {
+    private long rows;
+    private long inserted;
+    private long updated;
+    private long failed;
+    private long durationMs;
+    // Capped; failed holds the full count
+    private List<ImportErrorDTO> errors;
+}
@@ -14,6 +14,7 @@ import java.util.List;
 @AllArgsConstructor
 public class OrderDTO {
     private Long id;
+    private String orderNumber;
     private Long userId;
     private String userName;
     private String userEmail;
@@ -12,10 +12,11 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-class OrderItemDTO {
+public class OrderItemDTO {
     private Long id;
     private Long productId;
     private String productName;
+    private String productImageUrl;
     private Integer quantity;
     private BigDecimal price;
 }
\ No newline at end of file
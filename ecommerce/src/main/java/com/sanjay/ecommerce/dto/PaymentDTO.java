@@ -12,7 +12,7 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-class PaymentDTO {
+public class PaymentDTO {
     private Long id;
     private BigDecimal amount;
     private String paymentMethod;
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Data
 @Builder
@@ -21,4 +22,5 @@ public class ProductDTO {
     private String categoryName;
     private Double averageRating;
     private Integer reviewCount;
+    private LocalDateTime createdAt;
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.sanjay.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingSummaryDTO {
+    private Long productId;
+    private Double averageRating;
+    private Integer reviewCount;
+    // Number of reviews per star rating, 1 to 5
+    private Map<Integer, Integer> stars;
+}
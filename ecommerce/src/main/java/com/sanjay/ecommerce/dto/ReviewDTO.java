@@ -0,0 +1,21 @@
+package com.sanjay.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewDTO {
+    private Long id;
+    // Lets the author's own review be shown with edit and delete
+    private Long userId;
+    private String reviewerName;
+    private Integer rating;
+    private String comment;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,19 @@
+package com.sanjay.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesPointDTO {
+    private LocalDateTime bucketStart;
+    private long orders;
+    private BigDecimal revenue;
+    private long units;
+}
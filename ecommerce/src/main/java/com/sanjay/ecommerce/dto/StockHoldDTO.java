@@ -0,0 +1,18 @@
+package com.sanjay.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHoldDTO {
+    // Units held per product id
+    private Map<Long, Integer> quantities;
+    private LocalDateTime expiresAt;
+}
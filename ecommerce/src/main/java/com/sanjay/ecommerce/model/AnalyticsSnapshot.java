@@ -0,0 +1,37 @@
+package com.sanjay.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// The admin dashboard counters as last written by AnalyticsCounters, so a restart starts from
+// them instead of recounting users, orders and order items. One row, id SINGLETON_ID.
+@Entity
+@Table(name = "analytics_snapshots")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnalyticsSnapshot {
+    public static final long SINGLETON_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long totalUsers;
+
+    @Column(nullable = false)
+    private Long totalOrders;
+
+    @Column(nullable = false)
+    private BigDecimal totalRevenue;
+
+    // Units sold per product as a JSON object of product id to units
+    @Column(columnDefinition = "text", nullable = false)
+    private String unitsSold;
+
+    @Column(nullable = false)
+    private LocalDateTime takenAt;
+}
@@ -21,9 +21,12 @@ public class Cart {
     @JoinColumn(name = "user_id", unique = true)
     private User user;
 
-    @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
+    // No orphan removal: items are deleted explicitly, and emptying a cart is a single bulk DELETE
+    @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL)
+    @Builder.Default
     private Set<CartItem> items = new HashSet<>();
 
+    @Builder.Default
     private BigDecimal totalPrice = BigDecimal.ZERO;
 
     public void calculateTotalPrice() {
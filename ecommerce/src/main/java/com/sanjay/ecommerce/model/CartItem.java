@@ -12,15 +12,21 @@ import java.math.BigDecimal;
 @Builder
 public class CartItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_items_seq")
+    @SequenceGenerator(name = "cart_items_seq", sequenceName = "cart_items_seq", allocationSize = 50)
     private Long id;
 
+    // Back and product references stay out of equals/hashCode, which would otherwise recurse through the collections
     @ManyToOne
     @JoinColumn(name = "cart_id")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Cart cart;
 
     @ManyToOne
     @JoinColumn(name = "product_id")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Product product;
 
     @Column(nullable = false)
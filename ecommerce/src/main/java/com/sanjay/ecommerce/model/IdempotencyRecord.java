@@ -0,0 +1,37 @@
+package com.sanjay.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+// A request made with an Idempotency-Key and the response it produced, so a retry with the same
+// key gets that response again instead of repeating the request
+@Entity
+@Table(name = "idempotency_records",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "idempotency_key"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    // What the key was first used for; the same key with a different request is rejected
+    @Column(nullable = false)
+    private String requestFingerprint;
+
+    @Column(columnDefinition = "text")
+    private String responseBody;
+
+    @Column(nullable = false, updatable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -8,21 +8,31 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Order history: a user's orders newest first, paged by (orderDate, id)
+        @Index(name = "idx_orders_user_date", columnList = "user_id, orderDate, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Order {
+    // Sequence ids (50 per round trip) let Hibernate batch the checkout inserts; IDENTITY cannot
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
+    // What customers see and quote; the id stays internal
+    @Column(unique = true, updatable = false, length = 16)
+    private String orderNumber;
+
     @ManyToOne
     @JoinColumn(name = "user_id")
     private User user;
 
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL)
+    @Builder.Default
     private Set<OrderItem> items = new HashSet<>();
 
     @ManyToOne
@@ -33,15 +43,21 @@ public class Order {
     private BigDecimal totalAmount;
 
     @Enumerated(EnumType.STRING)
+    @Builder.Default
     private OrderStatus status = OrderStatus.PROCESSING;
 
     @Column(nullable = false, updatable = false)
+    @Builder.Default
     private LocalDateTime orderDate = LocalDateTime.now();
 
     @OneToOne(mappedBy = "order", cascade = CascadeType.ALL)
     private Payment payment;
 
+    // When a payment worker last took this PENDING order; set only by OrderRepository.claimPayment
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime paymentClaimedAt;
+
     public enum OrderStatus {
-        PROCESSING, SHIPPED, DELIVERED, CANCELLED
+        PENDING, PROCESSING, SHIPPED, DELIVERED, CANCELLED
     }
 }
\ No newline at end of file
@@ -12,15 +12,21 @@ import java.math.BigDecimal;
 @Builder
 public class OrderItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
 
+    // Kept out of equals/hashCode like CartItem's references, which would otherwise recurse through the collections
     @ManyToOne
     @JoinColumn(name = "order_id")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Order order;
 
     @ManyToOne
     @JoinColumn(name = "product_id")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Product product;
 
     @Column(nullable = false)
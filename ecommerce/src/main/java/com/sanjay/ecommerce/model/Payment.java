@@ -13,7 +13,8 @@ import java.time.LocalDateTime;
 @Builder
 public class Payment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne
@@ -32,6 +33,7 @@ public class Payment {
     private String transactionId;
 
     @Column(nullable = false)
+    @Builder.Default
     private LocalDateTime paymentDate = LocalDateTime.now();
 
     public enum PaymentMethod {
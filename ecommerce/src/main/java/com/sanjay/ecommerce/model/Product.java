@@ -3,13 +3,19 @@ package com.sanjay.ecommerce.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_category_price", columnList = "category_id, price, id"),
+        @Index(name = "idx_products_price", columnList = "price, id"),
+        @Index(name = "idx_products_rating", columnList = "averageRating, id"),
+        @Index(name = "idx_products_created_at", columnList = "createdAt, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -37,10 +43,47 @@ public class Product {
     @JoinColumn(name = "category_id")
     private Category category;
 
+    // Rating aggregates are written only in SQL, by ReviewService's deltas and RatingRepair, never
+    // by saving the entity. average_rating is rating_sum / review_count; stars1-5 count the reviews
+    // with each rating.
+    @Column(insertable = false, updatable = false, nullable = false)
+    @ColumnDefault("0")
     private Double averageRating = 0.0;
 
+    @Column(insertable = false, updatable = false, nullable = false)
+    @ColumnDefault("0")
     private Integer reviewCount = 0;
 
+    @Column(insertable = false, updatable = false, nullable = false)
+    @ColumnDefault("0")
+    @JsonIgnore
+    private Long ratingSum;
+
+    @Column(insertable = false, updatable = false, nullable = false)
+    @ColumnDefault("0")
+    @JsonIgnore
+    private Integer stars1;
+
+    @Column(insertable = false, updatable = false, nullable = false)
+    @ColumnDefault("0")
+    @JsonIgnore
+    private Integer stars2;
+
+    @Column(insertable = false, updatable = false, nullable = false)
+    @ColumnDefault("0")
+    @JsonIgnore
+    private Integer stars3;
+
+    @Column(insertable = false, updatable = false, nullable = false)
+    @ColumnDefault("0")
+    @JsonIgnore
+    private Integer stars4;
+
+    @Column(insertable = false, updatable = false, nullable = false)
+    @ColumnDefault("0")
+    @JsonIgnore
+    private Integer stars5;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
@@ -5,7 +5,13 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+        // Review pages by product, newest first, and with a star filter or highest rated first;
+        // lowest rated first uses an expression index, see schema-updates.sql. The rating index
+        // also serves the rating recount.
+        @Index(name = "idx_reviews_product_date", columnList = "product_id, createdAt, id"),
+        @Index(name = "idx_reviews_product_rating_date", columnList = "product_id, rating, createdAt, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,5 +36,6 @@ public class Review {
     private String comment;
 
     @Column(nullable = false, updatable = false)
+    @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.sanjay.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+// Orders placed, revenue and units sold in one time bucket, for one category or, with category
+// id ALL_CATEGORIES, for whole orders. Minute rows are written from placed orders and compacted
+// into hour and day rows; see SalesRollups.
+@Entity
+@Table(name = "sales_rollups",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"granularity", "category_id", "bucket_start"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalesRollup {
+    public static final long ALL_CATEGORIES = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Granularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(nullable = false)
+    private Long orders;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(nullable = false)
+    private Long units;
+
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES), HOUR(ChronoUnit.HOURS), DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        public ChronoUnit getUnit() {
+            return unit;
+        }
+
+        public LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+
+        // Name for date_trunc
+        public String sqlUnit() {
+            return name().toLowerCase();
+        }
+
+        public static Granularity from(String granularity) {
+            for (Granularity value : values()) {
+                if (value.name().equalsIgnoreCase(granularity)) {
+                    return value;
+                }
+            }
+            throw new RuntimeException("Unknown granularity: " + granularity);
+        }
+    }
+}
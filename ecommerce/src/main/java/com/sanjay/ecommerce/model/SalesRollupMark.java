@@ -0,0 +1,21 @@
+package com.sanjay.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+// How far sales_rollups rows of one granularity have been compacted: every finer bucket before
+// compactedUntil is included in them. Null until the first compaction.
+@Entity
+@Table(name = "sales_rollup_marks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollupMark {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private SalesRollup.Granularity granularity;
+
+    private LocalDateTime compactedUntil;
+}
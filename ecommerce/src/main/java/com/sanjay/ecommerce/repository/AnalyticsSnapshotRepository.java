@@ -0,0 +1,9 @@
+package com.sanjay.ecommerce.repository;
+
+import com.sanjay.ecommerce.model.AnalyticsSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AnalyticsSnapshotRepository extends JpaRepository<AnalyticsSnapshot, Long> {
+}
@@ -0,0 +1,72 @@
+package com.sanjay.ecommerce.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+// Whole-cart reads and writes for the in-memory cart store: one query loads a cart with its
+// lines, and a flush rewrites the lines of many carts in a few batched statements
+@Repository
+@RequiredArgsConstructor
+public class CartJdbcRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    // Empty list when the user has no cart row; a cart without items yields one row with a null product
+    public List<Line> load(Long userId) {
+        return jdbcTemplate.query(
+                "SELECT c.id AS cart_id, ci.product_id, ci.quantity, ci.price FROM carts c "
+                        + "LEFT JOIN cart_items ci ON ci.cart_id = c.id WHERE c.user_id = ? ORDER BY ci.id",
+                (rs, rowNum) -> new Line(
+                        rs.getLong("cart_id"),
+                        (Long) rs.getObject("product_id"),
+                        (Integer) rs.getObject("quantity"),
+                        rs.getBigDecimal("price")),
+                userId);
+    }
+
+    public Long upsertCart(Long userId, BigDecimal totalPrice) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO carts (user_id, total_price) VALUES (?, ?) "
+                        + "ON CONFLICT (user_id) DO UPDATE SET total_price = EXCLUDED.total_price RETURNING id",
+                Long.class, userId, totalPrice);
+    }
+
+    public void updateTotals(List<Long> cartIds, List<BigDecimal> totals) {
+        List<Object[]> args = new ArrayList<>(cartIds.size());
+        for (int i = 0; i < cartIds.size(); i++) {
+            args.add(new Object[]{totals.get(i), cartIds.get(i)});
+        }
+        jdbcTemplate.batchUpdate("UPDATE carts SET total_price = ? WHERE id = ?", args);
+    }
+
+    public void replaceItems(List<Long> cartIds, List<Line> lines) {
+        List<Object[]> deletes = new ArrayList<>(cartIds.size());
+        for (Long cartId : cartIds) {
+            deletes.add(new Object[]{cartId});
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM cart_items WHERE cart_id = ?", deletes);
+
+        List<Object[]> inserts = new ArrayList<>(lines.size());
+        for (Line line : lines) {
+            inserts.add(new Object[]{line.getCartId(), line.getProductId(), line.getQuantity(), line.getPrice()});
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO cart_items (id, cart_id, product_id, quantity, price) "
+                    + "VALUES (nextval('cart_items_seq'), ?, ?, ?, ?)", inserts);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Line {
+        private final Long cartId;
+        private final Long productId;
+        private final Integer quantity;
+        private final BigDecimal price;
+    }
+}
@@ -0,0 +1,38 @@
+package com.sanjay.ecommerce.repository;
+
+import com.sanjay.ecommerce.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Position in a newest-first order history: the (orderDate, id) of the last order on a page
+@Getter
+@AllArgsConstructor
+public class OrderCursor {
+    private final LocalDateTime orderDate;
+    private final Long id;
+
+    public static OrderCursor after(Order order) {
+        return new OrderCursor(order.getOrderDate(), order.getId());
+    }
+
+    public String encode() {
+        String raw = orderDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Malformed order cursor");
+            }
+            return new OrderCursor(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+}
@@ -1,13 +1,24 @@
 package com.sanjay.ecommerce.repository;
 
+import com.sanjay.ecommerce.model.Order;
 import com.sanjay.ecommerce.model.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
-    @Query("SELECT oi.product.name, SUM(oi.quantity) as total FROM OrderItem oi GROUP BY oi.product.id, oi.product.name ORDER BY total DESC")
-    List<Object[]> findTopSellingProducts();
+    // (product id, units) over orders not in the given status
+    @Query("SELECT oi.product.id, SUM(oi.quantity) FROM OrderItem oi WHERE oi.order.status <> :excluded GROUP BY oi.product.id")
+    List<Object[]> sumUnitsByProductExcluding(@Param("excluded") Order.OrderStatus excluded);
+
+    // (product id, minute, units) for paid orders placed in [since, until): pending and cancelled ones left out
+    @Query(value = "SELECT oi.product_id, date_trunc('minute', o.order_date), SUM(oi.quantity) "
+            + "FROM order_items oi JOIN orders o ON o.id = oi.order_id "
+            + "WHERE o.order_date >= :since AND o.order_date < :until AND o.status NOT IN ('PENDING', 'CANCELLED') GROUP BY 1, 2",
+            nativeQuery = true)
+    List<Object[]> sumUnitsByProductAndMinute(@Param("since") LocalDateTime since, @Param("until") LocalDateTime until);
 }
\ No newline at end of file
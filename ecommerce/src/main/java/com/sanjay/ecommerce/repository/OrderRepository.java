@@ -1,18 +1,59 @@
 package com.sanjay.ecommerce.repository;
 
 import com.sanjay.ecommerce.model.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByUserIdOrderByOrderDateDesc(Long userId);
+    // Order history is read in two steps: a keyset page of ids, then the page's orders with
+    // everything the response shows in one query. Fetch-joining collections cannot be combined
+    // with a row limit in SQL, so the limit stays on the id query.
+    @Query("SELECT o.id FROM Order o WHERE o.user.id = :userId ORDER BY o.orderDate DESC, o.id DESC")
+    List<Long> findHistoryIds(@Param("userId") Long userId, Pageable pageable);
 
-    @Query("SELECT COUNT(o) FROM Order o")
-    Long countTotalOrders();
+    @Query("SELECT o.id FROM Order o WHERE o.user.id = :userId "
+            + "AND (o.orderDate < :orderDate OR (o.orderDate = :orderDate AND o.id < :id)) "
+            + "ORDER BY o.orderDate DESC, o.id DESC")
+    List<Long> findHistoryIdsAfter(@Param("userId") Long userId, @Param("orderDate") LocalDateTime orderDate,
+                                   @Param("id") Long id, Pageable pageable);
 
-    @Query("SELECT SUM(o.totalAmount) FROM Order o")
-    Double getTotalRevenue();
+    @EntityGraph(attributePaths = {"user", "deliveryAddress", "payment", "items", "items.product", "items.product.category"})
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids")
+    List<Order> findWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT o.status FROM Order o WHERE o.id = :id")
+    Order.OrderStatus findStatusById(@Param("id") Long id);
+
+    // Moves the order only if it is still in the expected status; returns 0 otherwise
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :next WHERE o.id = :id AND o.status = :current")
+    int updateStatusIfCurrent(@Param("id") Long id, @Param("current") Order.OrderStatus current,
+                              @Param("next") Order.OrderStatus next);
+
+    // Takes a PENDING order for one payment attempt, unless another worker claimed it after the
+    // cutoff; returns 0 then, or once the order has moved on
+    @Modifying
+    @Query("UPDATE Order o SET o.paymentClaimedAt = :now WHERE o.id = :id AND o.status = :status "
+            + "AND (o.paymentClaimedAt IS NULL OR o.paymentClaimedAt < :cutoff)")
+    int claimPayment(@Param("id") Long id, @Param("status") Order.OrderStatus status,
+                     @Param("now") LocalDateTime now, @Param("cutoff") LocalDateTime cutoff);
+
+    // Orders placed before the cutoff and still in the status with no payment claim since then
+    @Query("SELECT o FROM Order o JOIN FETCH o.payment WHERE o.status = :status AND o.orderDate < :cutoff "
+            + "AND (o.paymentClaimedAt IS NULL OR o.paymentClaimedAt < :cutoff) ORDER BY o.id")
+    List<Order> findUnclaimed(@Param("status") Order.OrderStatus status, @Param("cutoff") LocalDateTime cutoff);
+
+    // Revenue leaves out orders in the given status (cancelled ones)
+    @Query("SELECT COALESCE(SUM(o.totalAmount), 0) FROM Order o WHERE o.status <> :excluded")
+    BigDecimal sumRevenueExcluding(@Param("excluded") Order.OrderStatus excluded);
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.sanjay.ecommerce.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Plain JDBC for bulk catalog transfers, where per-entity persistence would dominate the cost
+@Repository
+public class ProductBulkRepository {
+    private static final String INSERT = "INSERT INTO products (name, description, price, stock, image_url, category_id, "
+            + "average_rating, review_count, created_at) VALUES (?, ?, ?, ?, ?, ?, 0, 0, ?)";
+    // An empty image or category cell leaves the product's current value in place
+    private static final String UPDATE = "UPDATE products SET name = ?, description = ?, price = ?, stock = ?, "
+            + "image_url = COALESCE(?, image_url), category_id = COALESCE(?, category_id) WHERE id = ?";
+    private static final String EXPORT = "SELECT p.id, p.name, p.description, p.price, p.stock, p.image_url, c.name AS category, "
+            + "p.average_rating, p.review_count, p.created_at FROM products p LEFT JOIN categories c ON c.id = p.category_id ORDER BY p.id";
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductBulkRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // With autocommit off (inside a transaction) PostgreSQL reads this many rows per round trip from a cursor
+        this.jdbcTemplate.setFetchSize(EXPORT_FETCH_SIZE);
+    }
+
+    public int[] insertBatch(List<Row> rows) {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.batchUpdate(INSERT, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.getName());
+            ps.setString(2, row.getDescription());
+            ps.setBigDecimal(3, row.getPrice());
+            ps.setInt(4, row.getStock());
+            ps.setString(5, row.getImageUrl());
+            setLong(ps, 6, row.getCategoryId());
+            ps.setTimestamp(7, Timestamp.valueOf(now));
+        })[0];
+    }
+
+    public int[] updateBatch(List<Row> rows) {
+        return jdbcTemplate.batchUpdate(UPDATE, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.getName());
+            ps.setString(2, row.getDescription());
+            ps.setBigDecimal(3, row.getPrice());
+            ps.setInt(4, row.getStock());
+            ps.setString(5, row.getImageUrl());
+            setLong(ps, 6, row.getCategoryId());
+            ps.setLong(7, row.getId());
+        })[0];
+    }
+
+    // Must run inside a transaction for the fetch size to turn into a server-side cursor
+    public void streamAll(RowCallbackHandler handler) {
+        jdbcTemplate.query(EXPORT, handler);
+    }
+
+    private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, value);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Row {
+        private final long line;
+        private final Long id;
+        private final String name;
+        private final String description;
+        private final BigDecimal price;
+        private final int stock;
+        private final String imageUrl;
+        private final Long categoryId;
+    }
+}
@@ -0,0 +1,38 @@
+package com.sanjay.ecommerce.repository;
+
+import com.sanjay.ecommerce.dto.ProductDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+@Getter
+@AllArgsConstructor
+public class ProductCursor {
+    private final ProductSort sort;
+    private final Comparable<?> key;
+    private final Long id;
+
+    public static ProductCursor after(ProductSort sort, ProductDTO product) {
+        return new ProductCursor(sort, sort.parseKey(sort.keyOf(product)), product.getId());
+    }
+
+    public String encode() {
+        String raw = sort.name() + "|" + (key != null ? key.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String cursor, ProductSort expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            ProductSort sort = ProductSort.valueOf(parts[0]);
+            if (parts.length != 3 || sort != expectedSort) {
+                throw new IllegalArgumentException("Cursor does not match sort order");
+            }
+            return new ProductCursor(sort, sort.parseKey(parts[1]), Long.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.sanjay.ecommerce.repository;
+
+import com.sanjay.ecommerce.dto.ProductDTO;
+import com.sanjay.ecommerce.model.Product;
+import org.springframework.data.jpa.domain.Specification;
+import java.util.List;
+
+public interface ProductQueryRepository {
+    // Filtered, sorted slice starting strictly after the cursor; a null limit returns every match
+    List<ProductDTO> findSlice(Specification<Product> spec, ProductSort sort, ProductCursor after, Integer limit);
+}
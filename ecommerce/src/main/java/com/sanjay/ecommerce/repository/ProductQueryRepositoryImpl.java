@@ -0,0 +1,81 @@
+package com.sanjay.ecommerce.repository;
+
+import com.sanjay.ecommerce.dto.ProductDTO;
+import com.sanjay.ecommerce.model.Category;
+import com.sanjay.ecommerce.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.jpa.domain.Specification;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductQueryRepositoryImpl implements ProductQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductDTO> findSlice(Specification<Product> spec, ProductSort sort, ProductCursor after, Integer limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductDTO> query = cb.createQuery(ProductDTO.class);
+        Root<Product> root = query.from(Product.class);
+        Join<Product, Category> category = root.join("category", JoinType.LEFT);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (spec != null) {
+            Predicate filter = spec.toPredicate(root, query, cb);
+            if (filter != null) {
+                predicates.add(filter);
+            }
+        }
+        if (after != null) {
+            predicates.add(seekPredicate(root, cb, sort, after));
+        }
+
+        Path<Long> id = root.get("id");
+        List<Order> orders = new ArrayList<>();
+        if (sort.getProperty() != null) {
+            Expression<?> key = root.get(sort.getProperty());
+            orders.add(sort.isDescending() ? cb.desc(key) : cb.asc(key));
+        }
+        orders.add(sort.isDescending() ? cb.desc(id) : cb.asc(id));
+
+        query.select(cb.construct(ProductDTO.class,
+                        root.get("id"), root.get("name"), root.get("description"), root.get("price"),
+                        root.get("stock"), root.get("imageUrl"), category.get("id"), category.get("name"),
+                        root.get("averageRating"), root.get("reviewCount"), root.get("createdAt")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(orders);
+
+        TypedQuery<ProductDTO> typedQuery = entityManager.createQuery(query);
+        if (limit != null) {
+            typedQuery.setMaxResults(limit);
+        }
+        return typedQuery.getResultList();
+    }
+
+    // (key, id) > (cursorKey, cursorId) in the sort direction
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate seekPredicate(Root<Product> root, CriteriaBuilder cb, ProductSort sort, ProductCursor after) {
+        Path<Long> id = root.get("id");
+        if (sort.getProperty() == null) {
+            return cb.greaterThan(id, after.getId());
+        }
+
+        // Sort columns are non-null, so (key, id) orders every row and the index can seek on it
+        Expression<Comparable> key = root.get(sort.getProperty());
+        Comparable value = after.getKey();
+        if (sort.isDescending()) {
+            return cb.or(
+                    cb.lessThan(key, value),
+                    cb.and(cb.equal(key, value), cb.lessThan(id, after.getId()))
+            );
+        }
+        return cb.or(
+                cb.greaterThan(key, value),
+                cb.and(cb.equal(key, value), cb.greaterThan(id, after.getId()))
+        );
+    }
+}
@@ -1,24 +1,50 @@
 package com.sanjay.ecommerce.repository;
 
+import com.sanjay.ecommerce.dto.ProductDTO;
 import com.sanjay.ecommerce.model.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
-    List<Product> findByCategoryId(Long categoryId);
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductQueryRepository {
+    // Catalog reads select straight into ProductDTO: one query, no managed entities
+    String SELECT_DTO = "SELECT new com.sanjay.ecommerce.dto.ProductDTO(p.id, p.name, p.description, p.price, p.stock, "
+            + "p.imageUrl, c.id, c.name, p.averageRating, p.reviewCount, p.createdAt) FROM Product p LEFT JOIN p.category c";
 
-    @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(p.description) LIKE LOWER(CONCAT('%', :query, '%'))")
-    List<Product> searchProducts(@Param("query") String query);
+    @Query(SELECT_DTO + " ORDER BY p.id")
+    List<ProductDTO> findAllDtos();
+
+    @Query(SELECT_DTO + " WHERE p.id = :id")
+    Optional<ProductDTO> findDtoById(@Param("id") Long id);
+
+    @Query(SELECT_DTO + " WHERE p.id IN :ids")
+    List<ProductDTO> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SELECT_DTO + " WHERE c.id = :categoryId ORDER BY p.id")
+    List<ProductDTO> findDtosByCategoryId(@Param("categoryId") Long categoryId);
+
+    @Query(SELECT_DTO + " WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(p.description) LIKE LOWER(CONCAT('%', :query, '%'))")
+    List<ProductDTO> searchProducts(@Param("query") String query, Pageable pageable);
 
     List<Product> findByStockGreaterThan(Integer stock);
 
-    @Query("SELECT p FROM Product p ORDER BY p.averageRating DESC")
-    List<Product> findTopRatedProducts();
+    @Query("SELECT p.stock FROM Product p WHERE p.id = :id")
+    Optional<Integer> findStockById(@Param("id") Long id);
+
+    // Rows of [id, stock] for stock reconciliation
+    @Query("SELECT p.id, p.stock FROM Product p")
+    List<Object[]> findAllStockLevels();
+
+    @Query(SELECT_DTO + " ORDER BY p.averageRating DESC, p.id DESC")
+    List<ProductDTO> findTopRatedProducts(Pageable pageable);
 
-    @Query("SELECT p FROM Product p ORDER BY p.createdAt DESC")
-    List<Product> findLatestProducts();
-}
\ No newline at end of file
+    @Query(SELECT_DTO + " ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductDTO> findLatestProducts(Pageable pageable);
+}
@@ -0,0 +1,76 @@
+package com.sanjay.ecommerce.repository;
+
+import com.sanjay.ecommerce.dto.ProductDTO;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public enum ProductSort {
+    DEFAULT(null, false),
+    PRICE_LOW("price", false),
+    PRICE_HIGH("price", true),
+    RATING("averageRating", true),
+    NEWEST("createdAt", true);
+
+    private final String property;
+    private final boolean descending;
+
+    ProductSort(String property, boolean descending) {
+        this.property = property;
+        this.descending = descending;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public static ProductSort from(String sortBy) {
+        if (sortBy == null) {
+            return DEFAULT;
+        }
+        switch (sortBy) {
+            case "price_low":
+                return PRICE_LOW;
+            case "price_high":
+                return PRICE_HIGH;
+            case "rating":
+                return RATING;
+            case "newest":
+                return NEWEST;
+            default:
+                return DEFAULT;
+        }
+    }
+
+    // Value of the sort column for a product, as written into a cursor
+    public String keyOf(ProductDTO product) {
+        switch (this) {
+            case PRICE_LOW:
+            case PRICE_HIGH:
+                return product.getPrice().toPlainString();
+            case RATING:
+                return String.valueOf(product.getAverageRating() != null ? product.getAverageRating() : 0.0);
+            case NEWEST:
+                return product.getCreatedAt().toString();
+            default:
+                return "";
+        }
+    }
+
+    public Comparable<?> parseKey(String key) {
+        switch (this) {
+            case PRICE_LOW:
+            case PRICE_HIGH:
+                return new BigDecimal(key);
+            case RATING:
+                return Double.valueOf(key);
+            case NEWEST:
+                return LocalDateTime.parse(key);
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.sanjay.ecommerce.repository;
+
+import com.sanjay.ecommerce.model.Product;
+import org.springframework.data.jpa.domain.Specification;
+import java.math.BigDecimal;
+
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> inCategory(Long categoryId) {
+        return (root, query, cb) -> categoryId == null ? null
+                : cb.equal(root.get("category").get("id"), categoryId);
+    }
+
+    public static Specification<Product> priceAtLeast(Double minPrice) {
+        return (root, query, cb) -> minPrice == null ? null
+                : cb.greaterThanOrEqualTo(root.get("price"), BigDecimal.valueOf(minPrice));
+    }
+
+    public static Specification<Product> priceAtMost(Double maxPrice) {
+        return (root, query, cb) -> maxPrice == null ? null
+                : cb.lessThanOrEqualTo(root.get("price"), BigDecimal.valueOf(maxPrice));
+    }
+
+    public static Specification<Product> filter(Long categoryId, Double minPrice, Double maxPrice) {
+        return Specification.allOf(inCategory(categoryId), priceAtLeast(minPrice), priceAtMost(maxPrice));
+    }
+}
@@ -0,0 +1,97 @@
+package com.sanjay.ecommerce.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
+
+// Rating aggregates on products: the sum and count of a product's review ratings, how many reviews
+// gave each of 1-5 stars, and average_rating derived from them in the same statement
+@Repository
+@RequiredArgsConstructor
+public class RatingJdbcRepository {
+    public static final int MAX_STARS = 5;
+
+    // Totals of the selected reviews as columns c, s and s1-s5
+    private static final String TOTALS = "COUNT(*) AS c, COALESCE(SUM(rating), 0) AS s"
+            + starColumns(", COUNT(*) FILTER (WHERE rating = %1$d) AS s%1$d");
+    private static final String AVERAGE = "CASE WHEN r.c > 0 THEN r.s::float8 / r.c ELSE 0 END";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // One review's change: removed is the rating taken out (null for a new review), added the one
+    // put in (null for a deleted review). SET expressions read the row as it was before the update.
+    public int applyChange(Long productId, Integer removed, Integer added) {
+        int addedStars = added != null ? added : 0;
+        int removedStars = removed != null ? removed : 0;
+        int count = (added != null ? 1 : 0) - (removed != null ? 1 : 0);
+        long sum = addedStars - removedStars;
+        Object[] args = new Object[MAX_STARS + 6];
+        args[0] = sum;
+        args[1] = count;
+        for (int stars = 1; stars <= MAX_STARS; stars++) {
+            args[stars + 1] = (stars == addedStars ? 1 : 0) - (stars == removedStars ? 1 : 0);
+        }
+        args[MAX_STARS + 2] = count;
+        args[MAX_STARS + 3] = sum;
+        args[MAX_STARS + 4] = count;
+        args[MAX_STARS + 5] = productId;
+        return jdbcTemplate.update("UPDATE products SET rating_sum = rating_sum + ?, review_count = review_count + ?"
+                + starColumns(", stars%1$d = stars%1$d + ?")
+                + ", average_rating = CASE WHEN review_count + ? > 0 "
+                + "THEN (rating_sum + ?)::float8 / (review_count + ?) ELSE 0 END WHERE id = ?", args);
+    }
+
+    // Products whose aggregates differ from their reviews. Reads every review, so it is for the
+    // periodic repair only.
+    public List<Long> findDrifted() {
+        return jdbcTemplate.queryForList("SELECT p.id FROM products p LEFT JOIN (SELECT product_id, " + TOTALS + " FROM reviews GROUP BY product_id) r "
+                + "ON r.product_id = p.id WHERE p.review_count IS DISTINCT FROM COALESCE(r.c, 0) "
+                + "OR p.rating_sum <> COALESCE(r.s, 0)" + starColumns(" OR p.stars%1$d <> COALESCE(r.s%1$d, 0)")
+                + " OR p.average_rating IS DISTINCT FROM COALESCE(" + AVERAGE + ", 0) ORDER BY p.id", Long.class);
+    }
+
+    // Holds off review writes to the product until the transaction ends
+    public boolean lock(Long productId) {
+        return !jdbcTemplate.queryForList("SELECT id FROM products WHERE id = ? FOR UPDATE", Long.class, productId).isEmpty();
+    }
+
+    // Replaces the product's aggregates with a count of its reviews, zeros if it has none
+    public int recompute(Long productId) {
+        return jdbcTemplate.update("UPDATE products p SET review_count = r.c, rating_sum = r.s"
+                + starColumns(", stars%1$d = r.s%1$d") + ", average_rating = " + AVERAGE
+                + " FROM (SELECT " + TOTALS + " FROM reviews WHERE product_id = ?) r WHERE p.id = ?", productId, productId);
+    }
+
+    public Optional<Aggregate> find(Long productId) {
+        return jdbcTemplate.query("SELECT average_rating, review_count" + starColumns(", stars%1$d") + " FROM products WHERE id = ?",
+                (rs, rowNum) -> {
+                    int[] stars = new int[MAX_STARS];
+                    for (int i = 0; i < MAX_STARS; i++) {
+                        stars[i] = rs.getInt("stars" + (i + 1));
+                    }
+                    return new Aggregate(rs.getDouble("average_rating"), rs.getInt("review_count"), stars);
+                }, productId).stream().findFirst();
+    }
+
+    // The pattern once for each star count, with the count as %1$d
+    private static String starColumns(String pattern) {
+        StringBuilder sql = new StringBuilder();
+        for (int stars = 1; stars <= MAX_STARS; stars++) {
+            sql.append(String.format(pattern, stars));
+        }
+        return sql.toString();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Aggregate {
+        private final double averageRating;
+        private final int reviewCount;
+        // Reviews with 1 to 5 stars, at index 0 to 4
+        private final int[] stars;
+    }
+}
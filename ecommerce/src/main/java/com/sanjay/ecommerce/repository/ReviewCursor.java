@@ -0,0 +1,53 @@
+package com.sanjay.ecommerce.repository;
+
+import com.sanjay.ecommerce.dto.ReviewDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Position in a review listing: the sort keys of the last review on a page
+@Getter
+@AllArgsConstructor
+public class ReviewCursor {
+    private final ReviewSort sort;
+    private final Integer rating;
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    public static ReviewCursor after(ReviewSort sort, ReviewDTO review) {
+        return new ReviewCursor(sort, review.getRating(), review.getCreatedAt(), review.getId());
+    }
+
+    // Values for the sort's keys, in order
+    public Object[] keyValues() {
+        switch (sort) {
+            case HIGHEST:
+                return new Object[]{rating, createdAt, id};
+            case LOWEST:
+                return new Object[]{-rating, createdAt, id};
+            default:
+                return new Object[]{createdAt, id};
+        }
+    }
+
+    public String encode() {
+        String raw = sort.name() + "|" + rating + "|" + createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ReviewCursor decode(String cursor, ReviewSort expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            ReviewSort sort = ReviewSort.valueOf(parts[0]);
+            if (parts.length != 4 || sort != expectedSort) {
+                throw new IllegalArgumentException("Cursor does not match sort order");
+            }
+            return new ReviewCursor(sort, Integer.valueOf(parts[1]), LocalDateTime.parse(parts[2]), Long.valueOf(parts[3]));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+}
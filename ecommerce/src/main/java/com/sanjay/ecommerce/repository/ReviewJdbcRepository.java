@@ -0,0 +1,47 @@
+package com.sanjay.ecommerce.repository;
+
+import com.sanjay.ecommerce.dto.ReviewDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Review pages straight into ReviewDTO: the review columns and the reviewer's name, nothing else
+// of the user or the product. The product, the star filter, the sort and the cursor are all index
+// columns, so a page reads its own rows however many reviews the product has.
+@Repository
+@RequiredArgsConstructor
+public class ReviewJdbcRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    // stars and after are optional; limit rows past the cursor in the sort's order
+    public List<ReviewDTO> findPage(Long productId, ReviewSort sort, Integer stars, ReviewCursor after, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT r.id, r.user_id, u.full_name, r.rating, r.comment, r.created_at "
+                + "FROM reviews r JOIN users u ON u.id = r.user_id WHERE r.product_id = ?");
+        List<Object> args = new ArrayList<>(List.of(productId));
+        if (stars != null) {
+            sql.append(" AND r.rating = ?");
+            args.add(stars);
+        }
+        String keys = String.join(", ", sort.getKeys());
+        if (after != null) {
+            sql.append(" AND (").append(keys).append(") < (")
+                    .append(String.join(", ", Collections.nCopies(sort.getKeys().size(), "?"))).append(")");
+            Collections.addAll(args, after.keyValues());
+        }
+        sql.append(" ORDER BY ").append(sort.getKeys().stream().map(key -> key + " DESC").collect(Collectors.joining(", ")))
+                .append(" LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> ReviewDTO.builder()
+                .id(rs.getLong("id"))
+                .userId(rs.getLong("user_id"))
+                .reviewerName(rs.getString("full_name"))
+                .rating(rs.getInt("rating"))
+                .comment(rs.getString("comment"))
+                .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                .build(), args.toArray());
+    }
+}
@@ -0,0 +1,38 @@
+package com.sanjay.ecommerce.repository;
+
+import java.util.List;
+
+// Orders for a product's reviews. Every key runs descending, newest first among equal ratings, so
+// the position after a page is a single row comparison that the matching index can seek to.
+public enum ReviewSort {
+    RECENT(List.of("r.created_at", "r.id")),
+    HIGHEST(List.of("r.rating", "r.created_at", "r.id")),
+    // Negated so that a descending scan puts the lowest rating first (idx_reviews_product_low)
+    LOWEST(List.of("-r.rating", "r.created_at", "r.id"));
+
+    private final List<String> keys;
+
+    ReviewSort(List<String> keys) {
+        this.keys = keys;
+    }
+
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public static ReviewSort from(String sortBy) {
+        if (sortBy == null) {
+            return RECENT;
+        }
+        switch (sortBy) {
+            case "recent":
+                return RECENT;
+            case "highest":
+                return HIGHEST;
+            case "lowest":
+                return LOWEST;
+            default:
+                throw new RuntimeException("Unknown sort: " + sortBy);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.sanjay.ecommerce.repository;
+
+import com.sanjay.ecommerce.model.SalesRollup.Granularity;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// sales_rollups rows are only ever added to: a bucket written twice holds the sum of both writes
+@Repository
+@RequiredArgsConstructor
+public class SalesRollupJdbcRepository {
+    private static final String ADD_ON_CONFLICT = " ON CONFLICT (granularity, category_id, bucket_start) DO UPDATE SET "
+            + "orders = sales_rollups.orders + EXCLUDED.orders, "
+            + "revenue = sales_rollups.revenue + EXCLUDED.revenue, "
+            + "units = sales_rollups.units + EXCLUDED.units";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void add(Granularity granularity, List<Row> rows) {
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            args.add(new Object[]{granularity.name(), Timestamp.valueOf(row.getBucketStart()), row.getCategoryId(),
+                    row.getOrders(), row.getRevenue(), row.getUnits()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO sales_rollups (granularity, bucket_start, category_id, orders, revenue, units) "
+                + "VALUES (?, ?, ?, ?, ?, ?)" + ADD_ON_CONFLICT, args);
+    }
+
+    // Sums the source rows in [from, to) into target-sized buckets
+    public int rollUp(Granularity source, Granularity target, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.update("INSERT INTO sales_rollups (granularity, bucket_start, category_id, orders, revenue, units) "
+                        + "SELECT ?, date_trunc(?, bucket_start), category_id, SUM(orders), SUM(revenue), SUM(units) "
+                        + "FROM sales_rollups WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ? "
+                        + "GROUP BY 2, 3" + ADD_ON_CONFLICT,
+                target.name(), target.sqlUnit(), source.name(), Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    public int deleteBefore(Granularity granularity, LocalDateTime before) {
+        return jdbcTemplate.update("DELETE FROM sales_rollups WHERE granularity = ? AND bucket_start < ?",
+                granularity.name(), Timestamp.valueOf(before));
+    }
+
+    public LocalDateTime earliest(Granularity granularity) {
+        Timestamp earliest = jdbcTemplate.queryForObject("SELECT MIN(bucket_start) FROM sales_rollups WHERE granularity = ?",
+                Timestamp.class, granularity.name());
+        return earliest != null ? earliest.toLocalDateTime() : null;
+    }
+
+    public boolean hasRowsBefore(LocalDateTime before) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM sales_rollups WHERE bucket_start < ?)",
+                Boolean.class, Timestamp.valueOf(before)));
+    }
+
+    // Compaction takes the marks exclusively; writers that depend on them share them
+    public Map<Granularity, LocalDateTime> lockMarks(boolean exclusive) {
+        return marks("SELECT granularity, compacted_until FROM sales_rollup_marks " + (exclusive ? "FOR UPDATE" : "FOR SHARE"));
+    }
+
+    public Map<Granularity, LocalDateTime> marks() {
+        return marks("SELECT granularity, compacted_until FROM sales_rollup_marks");
+    }
+
+    public void setMark(Granularity granularity, LocalDateTime compactedUntil) {
+        jdbcTemplate.update("UPDATE sales_rollup_marks SET compacted_until = ? WHERE granularity = ?",
+                Timestamp.valueOf(compactedUntil), granularity.name());
+    }
+
+    // Minute rows for the orders placed before cutoff and not cancelled, from orders and
+    // order_items. Categories are the products' current ones.
+    public void backfillMinutes(LocalDateTime cutoff, long allCategories) {
+        Timestamp before = Timestamp.valueOf(cutoff);
+        jdbcTemplate.update("INSERT INTO sales_rollups (granularity, bucket_start, category_id, orders, revenue, units) "
+                        + "SELECT 'MINUTE', date_trunc('minute', o.order_date), ?, COUNT(*), SUM(o.total_amount), SUM(COALESCE(u.units, 0)) "
+                        + "FROM orders o LEFT JOIN (SELECT order_id, SUM(quantity) AS units FROM order_items GROUP BY order_id) u "
+                        + "ON u.order_id = o.id WHERE o.order_date < ? AND o.status <> 'CANCELLED' GROUP BY 2" + ADD_ON_CONFLICT,
+                allCategories, before);
+        jdbcTemplate.update("INSERT INTO sales_rollups (granularity, bucket_start, category_id, orders, revenue, units) "
+                        + "SELECT 'MINUTE', date_trunc('minute', o.order_date), p.category_id, COUNT(DISTINCT o.id), "
+                        + "SUM(oi.price * oi.quantity), SUM(oi.quantity) "
+                        + "FROM orders o JOIN order_items oi ON oi.order_id = o.id JOIN products p ON p.id = oi.product_id "
+                        + "WHERE o.order_date < ? AND o.status <> 'CANCELLED' AND p.category_id IS NOT NULL GROUP BY 2, 3" + ADD_ON_CONFLICT,
+                before);
+    }
+
+    // Totals per bucket of the given granularity, read from the listed rows; buckets without sales are left out
+    public List<Row> series(Granularity granularity, long categoryId, List<Segment> segments) {
+        StringBuilder sql = new StringBuilder("SELECT date_trunc(?, bucket_start) AS bucket, SUM(orders), SUM(revenue), SUM(units) "
+                + "FROM sales_rollups WHERE category_id = ? AND (");
+        List<Object> args = new ArrayList<>(List.of(granularity.sqlUnit(), categoryId));
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            sql.append(i > 0 ? " OR " : "").append("(granularity = ? AND bucket_start >= ? AND bucket_start < ?)");
+            args.add(segment.getSource().name());
+            args.add(Timestamp.valueOf(segment.getFrom()));
+            args.add(Timestamp.valueOf(segment.getTo()));
+        }
+        sql.append(") GROUP BY 1 ORDER BY 1");
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new Row(rs.getTimestamp(1).toLocalDateTime(), categoryId,
+                rs.getLong(2), rs.getBigDecimal(3), rs.getLong(4)), args.toArray());
+    }
+
+    private Map<Granularity, LocalDateTime> marks(String sql) {
+        Map<Granularity, LocalDateTime> marks = new EnumMap<>(Granularity.class);
+        jdbcTemplate.query(sql, rs -> {
+            Timestamp until = rs.getTimestamp("compacted_until");
+            if (until != null) {
+                marks.put(Granularity.valueOf(rs.getString("granularity")), until.toLocalDateTime());
+            }
+        });
+        return marks;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Row {
+        private final LocalDateTime bucketStart;
+        private final long categoryId;
+        private final long orders;
+        private final BigDecimal revenue;
+        private final long units;
+    }
+
+    // Rows of one granularity with bucket_start in [from, to)
+    @Getter
+    @AllArgsConstructor
+    public static class Segment {
+        private final Granularity source;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+    }
+}
@@ -0,0 +1,45 @@
+package com.sanjay.ecommerce.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+// Stock changes for a whole order in a fixed number of statements: one query locks every row,
+// one batch writes them all, however many products the order has
+@Repository
+@RequiredArgsConstructor
+public class StockJdbcRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    // Locks the rows in ascending id order, so two orders sharing products cannot deadlock
+    public List<Level> lockStockLevels(SortedMap<Long, Integer> quantities) {
+        return jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement("SELECT id, name, stock FROM products WHERE id = ANY (?) ORDER BY id FOR UPDATE");
+            ps.setArray(1, con.createArrayOf("bigint", quantities.keySet().toArray()));
+            return ps;
+        }, (rs, rowNum) -> new Level(rs.getLong("id"), rs.getString("name"), rs.getInt("stock")));
+    }
+
+    // Positive quantities are taken, negative ones put back; rows are written in ascending id order
+    public int[] adjustStock(SortedMap<Long, Integer> quantities) {
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            args.add(new Object[]{entry.getValue(), entry.getKey(), entry.getValue()});
+        }
+        return jdbcTemplate.batchUpdate("UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?", args);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Level {
+        private final Long productId;
+        private final String name;
+        private final int stock;
+    }
+}
@@ -0,0 +1,20 @@
+package com.sanjay.ecommerce.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.security.Principal;
+
+// Authenticated caller as carried by the JWT claims, so identity needs no database lookup.
+// getName() is the email, which keeps Authentication.getName() meaning what it did before.
+@Getter
+@AllArgsConstructor
+public class AuthUser implements Principal {
+    private final Long userId;
+    private final String email;
+    private final String role;
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -0,0 +1,13 @@
+package com.sanjay.ecommerce.security;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Injects the authenticated caller into a controller method: a Long parameter receives the
+// user id, an AuthUser parameter the whole principal
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CurrentUser {
+}
@@ -1,50 +1,49 @@
 package com.sanjay.ecommerce.security;
 
+import com.sanjay.ecommerce.model.User;
+import com.sanjay.ecommerce.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final UserRepository userRepository;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String userEmail;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7);
-        userEmail = jwtUtil.extractUsername(jwt);
-
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            AuthUser user = authenticate(authHeader.substring(7));
+            if (user != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
+                        user,
                         null,
-                        userDetails.getAuthorities()
+                        List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole()))
                 );
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
@@ -52,4 +51,37 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    // Null for a bad or expired token, which leaves the request anonymous
+    private AuthUser authenticate(String jwt) {
+        AuthUser cached = verifiedTokenCache.get(jwt);
+        if (cached != null) {
+            return cached;
+        }
+
+        // One parse verifies the signature and expiry and yields every claim
+        Claims claims;
+        try {
+            claims = jwtUtil.extractAllClaims(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        AuthUser user;
+        Number userId = claims.get(JwtUtil.USER_ID_CLAIM, Number.class);
+        String role = claims.get(JwtUtil.ROLE_CLAIM, String.class);
+        if (userId != null && role != null) {
+            user = new AuthUser(userId.longValue(), claims.getSubject(), role);
+        } else {
+            // Tokens issued before the id/role claims existed still work until they expire
+            User account = userRepository.findByEmail(claims.getSubject()).orElse(null);
+            if (account == null) {
+                return null;
+            }
+            user = new AuthUser(account.getId(), account.getEmail(), account.getRole().name());
+        }
+        if (claims.getExpiration() != null) {
+            verifiedTokenCache.put(jwt, user, claims.getExpiration().getTime());
+        }
+        return user;
+    }
 }
@@ -0,0 +1,75 @@
+package com.sanjay.ecommerce.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Principals of recently verified tokens, keyed by the token's SHA-256 so raw bearer tokens are
+// never retained. A hit skips signature verification and claim parsing; entries die with their
+// token's expiry, and the map is capped so a flood of distinct tokens cannot grow it unbounded.
+@Component
+public class VerifiedTokenCache {
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Value("${jwt.cache.max-entries:10000}")
+    private int maxEntries;
+
+    public AuthUser get(String token) {
+        String key = digest(token);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.getExpiresAt() <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.getUser();
+    }
+
+    public void put(String token, AuthUser user, long expiresAt) {
+        if (entries.size() >= maxEntries) {
+            evict();
+        }
+        entries.put(digest(token), new Entry(user, expiresAt));
+    }
+
+    // Expired entries go first; if the cap is still reached, arbitrary ones until a tenth is free
+    private void evict() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.getExpiresAt() <= now);
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() >= maxEntries - maxEntries / 10 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static String digest(String token) {
+        byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().withoutPadding().encodeToString(hash);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Entry {
+        private final AuthUser user;
+        private final long expiresAt;
+    }
+}
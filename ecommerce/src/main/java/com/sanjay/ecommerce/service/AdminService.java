@@ -1,28 +1,38 @@
 package com.sanjay.ecommerce.service;
 
+import com.sanjay.ecommerce.dto.ProductDTO;
+import com.sanjay.ecommerce.dto.SalesPointDTO;
 import com.sanjay.ecommerce.model.*;
 import com.sanjay.ecommerce.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.*;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class AdminService {
+    private static final int MAX_TOP_PRODUCTS = 50;
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
-    private final OrderRepository orderRepository;
-    private final OrderItemRepository orderItemRepository;
-    private final UserRepository userRepository;
+    private final AnalyticsCounters analyticsCounters;
+    private final CatalogIndex catalogIndex;
+    private final SalesRollups salesRollups;
+    private final BestSellers bestSellers;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
 
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new CatalogChangedEvent(saved.getId(), true));
+        return saved;
     }
 
     public Product updateProduct(Long productId, Product updateData) {
@@ -38,39 +48,80 @@ public class AdminService {
             product.setImageUrl(updateData.getImageUrl());
         }
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new CatalogChangedEvent(productId, true));
+        return saved;
     }
 
     public void deleteProduct(Long productId) {
         productRepository.deleteById(productId);
+        eventPublisher.publishEvent(new CatalogChangedEvent(productId, true));
     }
 
+    // Read from AnalyticsCounters; only the names of the top products are looked up
+    @Transactional(readOnly = true)
     public Map<String, Object> getAnalytics() {
+        AnalyticsCounters.Totals totals = analyticsCounters.totals();
         Map<String, Object> analytics = new HashMap<>();
+        analytics.put("totalUsers", totals.getUsers());
+        analytics.put("totalOrders", totals.getOrders());
+        analytics.put("totalRevenue", totals.getRevenue());
+
+        Map<Long, Long> topProducts = new LinkedHashMap<>();
+        totals.getTopProducts().forEach(product -> topProducts.put(product.getProductId(), product.getUnits()));
+        analytics.put("topProducts", topProductRows(topProducts));
 
-        // Total users
-        Long totalUsers = userRepository.count();
-        analytics.put("totalUsers", totalUsers);
+        return analytics;
+    }
 
-        // Total orders
-        Long totalOrders = orderRepository.countTotalOrders();
-        analytics.put("totalOrders", totalOrders);
+    // Best sellers of the last hour, day or week from BestSellers; units are upper bounds
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getTopProducts(String window, int limit) {
+        Map<Long, Long> topProducts = new LinkedHashMap<>();
+        bestSellers.top(BestSellers.Window.from(window), Math.max(1, Math.min(limit, MAX_TOP_PRODUCTS)))
+                .forEach(entry -> topProducts.put(entry.getProductId(), entry.getUnits()));
+        return topProductRows(topProducts);
+    }
 
-        // Total revenue
-        Double totalRevenue = orderRepository.getTotalRevenue();
-        analytics.put("totalRevenue", totalRevenue != null ? totalRevenue : 0.0);
+    @Transactional(readOnly = true)
+    public List<SalesPointDTO> getSalesSeries(LocalDateTime from, LocalDateTime to, String granularity, Long categoryId) {
+        return salesRollups.series(from, to, SalesRollup.Granularity.from(granularity), categoryId);
+    }
 
-        // Top selling products
-        List<Object[]> topProducts = orderItemRepository.findTopSellingProducts();
-        List<Map<String, Object>> topProductsList = new ArrayList<>();
-        for (Object[] row : topProducts) {
+    // Name and units per product, in the given order
+    private List<Map<String, Object>> topProductRows(Map<Long, Long> unitsByProduct) {
+        Map<Long, String> names = productNames(new ArrayList<>(unitsByProduct.keySet()));
+        List<Map<String, Object>> rows = new ArrayList<>();
+        unitsByProduct.forEach((productId, units) -> {
+            String name = names.get(productId);
+            if (name == null) {
+                // Deleted since it sold
+                return;
+            }
             Map<String, Object> productData = new HashMap<>();
-            productData.put("name", row[0]);
-            productData.put("totalSold", row[1]);
-            topProductsList.add(productData);
-        }
-        analytics.put("topProducts", topProductsList);
+            productData.put("productId", productId);
+            productData.put("name", name);
+            productData.put("totalSold", units);
+            rows.add(productData);
+        });
+        return rows;
+    }
 
-        return analytics;
+    // From the catalog snapshot where possible, the rest in one query
+    private Map<Long, String> productNames(List<Long> productIds) {
+        Map<Long, String> names = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : productIds) {
+            ProductDTO product = catalogIndex.current().findById(productId);
+            if (product != null) {
+                names.put(productId, product.getName());
+            } else {
+                missing.add(productId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            productRepository.findAllById(missing).forEach(product -> names.put(product.getId(), product.getName()));
+        }
+        return names;
     }
 }
\ No newline at end of file
@@ -0,0 +1,336 @@
+package com.sanjay.ecommerce.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanjay.ecommerce.model.AnalyticsSnapshot;
+import com.sanjay.ecommerce.model.Order;
+import com.sanjay.ecommerce.model.OrderItem;
+import com.sanjay.ecommerce.repository.AnalyticsSnapshotRepository;
+import com.sanjay.ecommerce.repository.OrderItemRepository;
+import com.sanjay.ecommerce.repository.OrderRepository;
+import com.sanjay.ecommerce.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Admin dashboard totals kept in memory: users, orders, revenue and units sold per product, plus
+// the best sellers. Each change is applied when the transaction that made it commits, so the
+// dashboard costs the same to read however many orders exist. Cancelled orders still count as
+// orders but give back their revenue and units.
+//
+// The counters are written to analytics_snapshots every analytics.snapshot-interval-ms and
+// start from there after a restart. A periodic recount from users, orders and order_items
+// replaces them if they have drifted; a recount that overlaps a commit may or may not include
+// it, so it is discarded and the next round tries again.
+@Slf4j
+@Component
+public class AnalyticsCounters {
+    private static final int TOP_PRODUCTS = 10;
+    private static final TypeReference<Map<Long, Long>> UNITS_TYPE = new TypeReference<>() {};
+
+    private final AnalyticsSnapshotRepository snapshotRepository;
+    private final UserRepository userRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    // The recount's queries must all see the same committed state
+    private final TransactionTemplate recountTransaction;
+
+    // All guarded by this
+    private long users;
+    private long orders;
+    private BigDecimal revenue = BigDecimal.ZERO;
+    private final Map<Long, Long> unitsSold = new HashMap<>();
+    // Product ids with the most units, most first; rebuilt from unitsSold when a top product loses units
+    private final List<Long> topProducts = new ArrayList<>();
+    private boolean topStale;
+    private boolean dirty;
+    // Set once the counters come from the snapshot or a recount; until then nothing is written back
+    private boolean loaded;
+    // Transactions between beforeCommit and afterCompletion, and how many changes have settled so far
+    private int committing;
+    private long settled;
+
+    public AnalyticsCounters(AnalyticsSnapshotRepository snapshotRepository, UserRepository userRepository,
+                             OrderRepository orderRepository, OrderItemRepository orderItemRepository,
+                             ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.snapshotRepository = snapshotRepository;
+        this.userRepository = userRepository;
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.recountTransaction = new TransactionTemplate(transactionManager);
+        this.recountTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.recountTransaction.setReadOnly(true);
+    }
+
+    public void userCreated() {
+        record(new Delta(1, 0, BigDecimal.ZERO, Map.of()));
+    }
+
+    public void orderPlaced(Order order) {
+        record(Delta.of(order, 1, 1));
+    }
+
+    public void orderCancelled(Order order) {
+        record(Delta.of(order, 0, -1));
+    }
+
+    // A cancelled order moved back to a live status
+    public void orderReinstated(Order order) {
+        record(Delta.of(order, 0, 1));
+    }
+
+    public synchronized Totals totals() {
+        List<ProductUnits> top = topProducts.stream()
+                .map(productId -> new ProductUnits(productId, unitsSold.get(productId)))
+                .toList();
+        return new Totals(users, orders, revenue, top);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        Optional<AnalyticsSnapshot> snapshot = transaction.execute(status ->
+                snapshotRepository.findById(AnalyticsSnapshot.SINGLETON_ID));
+        if (snapshot.isEmpty()) {
+            reconcile();
+            return;
+        }
+        Map<Long, Long> units = read(snapshot.get().getUnitsSold());
+        synchronized (this) {
+            // Added to, not replacing, anything recorded since startup
+            apply(new Delta(snapshot.get().getTotalUsers(), snapshot.get().getTotalOrders(),
+                    snapshot.get().getTotalRevenue(), units));
+            rebuildTop();
+            loaded = true;
+        }
+        log.info("Analytics counters loaded from snapshot taken at {}", snapshot.get().getTakenAt());
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.snapshot-interval-ms:30000}")
+    public void persistSnapshot() {
+        AnalyticsSnapshot snapshot;
+        Map<Long, Long> units;
+        synchronized (this) {
+            if (topStale) {
+                rebuildTop();
+            }
+            if (!loaded || !dirty) {
+                return;
+            }
+            units = new HashMap<>(unitsSold);
+            snapshot = AnalyticsSnapshot.builder()
+                    .id(AnalyticsSnapshot.SINGLETON_ID)
+                    .totalUsers(users)
+                    .totalOrders(orders)
+                    .totalRevenue(revenue)
+                    .takenAt(LocalDateTime.now())
+                    .build();
+            dirty = false;
+        }
+        try {
+            snapshot.setUnitsSold(write(units));
+            transaction.executeWithoutResult(status -> snapshotRepository.save(snapshot));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                dirty = true;
+            }
+            log.warn("Could not write analytics snapshot: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        persistSnapshot();
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.reconcile-interval-ms:300000}", initialDelayString = "${analytics.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        long before;
+        synchronized (this) {
+            if (committing > 0) {
+                log.debug("Analytics recount skipped: a change is committing");
+                return;
+            }
+            before = settled;
+        }
+
+        Delta recount = recountTransaction.execute(status -> {
+            Map<Long, Long> units = new HashMap<>();
+            for (Object[] row : orderItemRepository.sumUnitsByProductExcluding(Order.OrderStatus.CANCELLED)) {
+                units.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+            return new Delta(userRepository.count(), orderRepository.count(),
+                    orderRepository.sumRevenueExcluding(Order.OrderStatus.CANCELLED), units);
+        });
+
+        synchronized (this) {
+            if (committing > 0 || settled != before) {
+                log.debug("Analytics recount skipped: changes committed while counting");
+                return;
+            }
+            boolean drifted = users != recount.users || orders != recount.orders
+                    || revenue.compareTo(recount.revenue) != 0 || !unitsSold.equals(recount.units);
+            if (!drifted) {
+                loaded = true;
+                return;
+            }
+            users = recount.users;
+            orders = recount.orders;
+            revenue = recount.revenue;
+            unitsSold.clear();
+            unitsSold.putAll(recount.units);
+            rebuildTop();
+            dirty = true;
+            loaded = true;
+        }
+        log.info("Analytics counters replaced by recount");
+    }
+
+    // Applied once the surrounding transaction commits, or straight away outside one
+    private void record(Delta delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            synchronized (this) {
+                apply(delta);
+                settled++;
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean began;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                synchronized (AnalyticsCounters.this) {
+                    committing++;
+                }
+                began = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (!began) {
+                    return;
+                }
+                synchronized (AnalyticsCounters.this) {
+                    committing--;
+                    settled++;
+                    if (status == STATUS_COMMITTED) {
+                        apply(delta);
+                    }
+                }
+            }
+        });
+    }
+
+    private void apply(Delta delta) {
+        users += delta.users;
+        orders += delta.orders;
+        revenue = revenue.add(delta.revenue);
+        delta.units.forEach((productId, units) -> {
+            Long total = unitsSold.merge(productId, units, (current, added) -> current + added == 0 ? null : current + added);
+            updateTop(productId, total != null ? total : 0, units < 0);
+        });
+        dirty = true;
+    }
+
+    // Keeps the top list without scanning every product. A gain can only move its own product up;
+    // a loss may let a product outside the list overtake, so the list is rebuilt on the next snapshot.
+    private void updateTop(Long productId, long total, boolean lost) {
+        boolean listed = topProducts.contains(productId);
+        if (lost) {
+            if (!listed) {
+                return;
+            }
+            topStale = true;
+            if (total == 0) {
+                topProducts.remove(productId);
+            }
+        } else if (!listed) {
+            if (topProducts.size() == TOP_PRODUCTS) {
+                Long last = topProducts.get(TOP_PRODUCTS - 1);
+                if (unitsSold.get(last) >= total) {
+                    return;
+                }
+                topProducts.remove(TOP_PRODUCTS - 1);
+            }
+            topProducts.add(productId);
+        }
+        topProducts.sort(Comparator.comparing(unitsSold::get, Comparator.reverseOrder()));
+    }
+
+    private void rebuildTop() {
+        topProducts.clear();
+        unitsSold.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .limit(TOP_PRODUCTS)
+                .forEach(entry -> topProducts.add(entry.getKey()));
+        topStale = false;
+    }
+
+    private Map<Long, Long> read(String units) {
+        try {
+            return objectMapper.readValue(units, UNITS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable analytics snapshot", e);
+        }
+    }
+
+    private String write(Map<Long, Long> units) {
+        try {
+            return objectMapper.writeValueAsString(units);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Analytics snapshot cannot be written", e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Totals {
+        private final long users;
+        private final long orders;
+        private final BigDecimal revenue;
+        private final List<ProductUnits> topProducts;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ProductUnits {
+        private final Long productId;
+        private final long units;
+    }
+
+    // A change to every counter at once; negative values take away
+    @AllArgsConstructor
+    private static final class Delta {
+        private final long users;
+        private final long orders;
+        private final BigDecimal revenue;
+        private final Map<Long, Long> units;
+
+        // sign 1 counts the order's revenue and units in, -1 takes them out
+        static Delta of(Order order, long orders, int sign) {
+            Map<Long, Long> units = new HashMap<>();
+            for (OrderItem item : order.getItems()) {
+                units.merge(item.getProduct().getId(), (long) item.getQuantity() * sign, Long::sum);
+            }
+            return new Delta(0, orders, order.getTotalAmount().multiply(BigDecimal.valueOf(sign)), units);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.sanjay.ecommerce.service;
+
+import com.sanjay.ecommerce.model.Order;
+import com.sanjay.ecommerce.model.OrderItem;
+import com.sanjay.ecommerce.repository.OrderItemRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+// Best-selling products over the last hour, day and week, in memory that does not grow with the
+// catalog. Each window is a ring of panes (hour: 12 x 5 minutes, day: 24 x 1 hour, week: 28 x 6
+// hours), each pane a SpaceSaving summary of trending.capacity products fed with the units of
+// every order whose payment is approved; a summary cannot take units back out, so declined orders
+// are never counted. A window's list merges its live panes, so it reaches back between its length
+// less one pane and its full length. Counts are upper bounds. An order an admin cancels after its
+// payment went through stays counted until its pane ages out, and one an admin reinstates is not
+// added. On startup the panes are refilled from the last week of paid orders.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BestSellers {
+    private final OrderItemRepository orderItemRepository;
+
+    private final Map<Window, Ring> rings = new EnumMap<>(Window.class);
+    // Approvals committed before the startup load are already in it
+    private boolean loaded;
+
+    @Value("${trending.capacity:100}")
+    private int capacity;
+
+    @PostConstruct
+    public void init() {
+        for (Window window : Window.values()) {
+            rings.put(window, new Ring(window, capacity));
+        }
+    }
+
+    // Counted at the order's placement time once the approval commits
+    public void orderApproved(Order order) {
+        long time = epochMillis(order.getOrderDate());
+        Map<Long, Long> units = new HashMap<>();
+        for (OrderItem item : order.getItems()) {
+            units.merge(item.getProduct().getId(), (long) item.getQuantity(), Long::sum);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(time, units);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(time, units);
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void onStartup() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = orderItemRepository.sumUnitsByProductAndMinute(now.minus(Window.WEEK.length()), now);
+        for (Object[] row : rows) {
+            long time = epochMillis(row[1] instanceof Timestamp minute ? minute.toLocalDateTime() : (LocalDateTime) row[1]);
+            long productId = ((Number) row[0]).longValue();
+            long units = ((Number) row[2]).longValue();
+            rings.values().forEach(ring -> ring.offer(time, productId, units));
+        }
+        loaded = true;
+        log.info("Best sellers loaded from {} product-minutes of sales", rows.size());
+    }
+
+    // Most units first
+    public synchronized List<Entry> top(Window window, int limit) {
+        return rings.get(window).top(System.currentTimeMillis(), limit);
+    }
+
+    private synchronized void add(long time, Map<Long, Long> units) {
+        if (!loaded) {
+            return;
+        }
+        units.forEach((productId, quantity) -> rings.values().forEach(ring -> ring.offer(time, productId, quantity)));
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public enum Window {
+        HOUR(12, Duration.ofMinutes(5)), DAY(24, Duration.ofHours(1)), WEEK(28, Duration.ofHours(6));
+
+        private final int panes;
+        private final Duration pane;
+
+        Window(int panes, Duration pane) {
+            this.panes = panes;
+            this.pane = pane;
+        }
+
+        public Duration length() {
+            return pane.multipliedBy(panes);
+        }
+
+        public static Window from(String window) {
+            for (Window value : values()) {
+                if (value.name().equalsIgnoreCase(window)) {
+                    return value;
+                }
+            }
+            throw new RuntimeException("Unknown window: " + window);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final Long productId;
+        private final long units;
+    }
+
+    // Panes indexed by time / pane length; a slot holding an older pane is cleared when reused
+    private static final class Ring {
+        private final long paneMillis;
+        private final int capacity;
+        private final SpaceSaving[] panes;
+        private final long[] paneIds;
+
+        Ring(Window window, int capacity) {
+            this.paneMillis = window.pane.toMillis();
+            this.capacity = capacity;
+            this.panes = new SpaceSaving[window.panes];
+            this.paneIds = new long[window.panes];
+            Arrays.fill(paneIds, -1);
+        }
+
+        void offer(long time, long productId, long units) {
+            long paneId = time / paneMillis;
+            int slot = (int) (paneId % panes.length);
+            if (paneIds[slot] > paneId) {
+                // Older than the window
+                return;
+            }
+            if (paneIds[slot] < paneId) {
+                panes[slot] = new SpaceSaving(capacity);
+                paneIds[slot] = paneId;
+            }
+            panes[slot].offer(productId, units);
+        }
+
+        List<Entry> top(long now, int limit) {
+            long current = now / paneMillis;
+            Map<Long, Long> units = new HashMap<>();
+            for (int slot = 0; slot < panes.length; slot++) {
+                if (paneIds[slot] > current - panes.length && paneIds[slot] <= current) {
+                    for (SpaceSaving.Counter counter : panes[slot].counters()) {
+                        units.merge(counter.item, counter.count, Long::sum);
+                    }
+                }
+            }
+            return units.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .map(entry -> new Entry(entry.getKey(), entry.getValue()))
+                    .toList();
+        }
+    }
+}
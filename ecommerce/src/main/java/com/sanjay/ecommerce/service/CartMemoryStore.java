@@ -0,0 +1,330 @@
+package com.sanjay.ecommerce.service;
+
+import com.sanjay.ecommerce.repository.CartJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Write-behind cart store used when cart.store=memory. Reads and mutations touch only memory,
+// serialized per user by a fixed set of lock stripes; every mutation marks the cart dirty and a
+// scheduled flusher writes the latest state of many dirty carts in one batched transaction, so a
+// burst of clicks costs one write. Callers that need the database current (checkout) flush first.
+@Slf4j
+@Component
+public class CartMemoryStore {
+    private static final int STRIPES = 64;
+
+    private final CartJdbcRepository cartJdbcRepository;
+    private final TransactionTemplate flushTransaction;
+
+    private final Object[] stripes = new Object[STRIPES];
+    private final Map<Long, CartState> carts = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    @Value("${cart.flush-batch-size:200}")
+    private int flushBatchSize;
+
+    @Value("${cart.idle-evict-ms:1800000}")
+    private long idleEvictMs;
+
+    public CartMemoryStore(CartJdbcRepository cartJdbcRepository, PlatformTransactionManager transactionManager) {
+        this.cartJdbcRepository = cartJdbcRepository;
+        // Joins the caller's transaction: a checkout flush rides on the order's connection
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    // Copy of the user's cart lines in insertion order
+    public List<Line> read(Long userId) {
+        synchronized (stripe(userId)) {
+            CartState cart = load(userId);
+            cart.lastAccess = System.currentTimeMillis();
+            return new ArrayList<>(cart.lines.values());
+        }
+    }
+
+    // Applies a mutation to the user's lines (keyed by product id) and returns the result
+    public List<Line> update(Long userId, Consumer<Map<Long, Line>> mutation) {
+        synchronized (stripe(userId)) {
+            CartState cart = load(userId);
+            mutation.accept(cart.lines);
+            cart.version++;
+            cart.lastAccess = System.currentTimeMillis();
+            dirty.add(userId);
+            return new ArrayList<>(cart.lines.values());
+        }
+    }
+
+    // Writes the user's pending changes in the current transaction, or in one of its own without
+    // one. Inside a transaction the scheduled flusher leaves the cart alone until it ends: on
+    // rollback the cart simply stays dirty; on commit it counts as flushed, unless the transaction
+    // placed an order from it (clearOrdered).
+    public void flush(Long userId) {
+        CartState cart = carts.get(userId);
+        if (cart == null) {
+            return;
+        }
+        cart.flushLock.lock();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                Pending pending = snapshot(userId, cart);
+                if (pending != null) {
+                    write(List.of(pending));
+                    markFlushed(List.of(pending));
+                }
+            } finally {
+                cart.flushLock.unlock();
+            }
+            return;
+        }
+
+        Pending written;
+        try {
+            synchronized (stripe(userId)) {
+                written = new Pending(userId, cart, cart.cartId, cart.version, new ArrayList<>(cart.lines.values()));
+            }
+            if (written.version != cart.flushedVersion) {
+                write(List.of(written));
+            }
+        } catch (RuntimeException e) {
+            cart.flushLock.unlock();
+            throw e;
+        }
+        cart.checkout = written;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (written.ordered) {
+                    dropOrdered(written);
+                } else {
+                    markFlushed(List.of(written));
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                cart.checkout = null;
+                cart.flushLock.unlock();
+            }
+        });
+    }
+
+    // The current transaction empties the database cart flushed for it by placing an order
+    public void clearOrdered(Long userId) {
+        CartState cart = carts.get(userId);
+        if (cart != null && cart.checkout != null) {
+            cart.checkout.ordered = true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cart.flush-interval-ms:500}")
+    public void flushDirty() {
+        if (!dirty.isEmpty()) {
+            List<Long> users = new ArrayList<>(dirty);
+            for (int from = 0; from < users.size(); from += flushBatchSize) {
+                flushBatch(users.subList(from, Math.min(users.size(), from + flushBatchSize)));
+            }
+        }
+        evictIdle();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Best effort on a clean stop; a crash loses at most one flush interval of cart edits
+        flushDirty();
+    }
+
+    private void flushBatch(List<Long> users) {
+        List<CartState> locked = new ArrayList<>();
+        List<Pending> batch = new ArrayList<>();
+        try {
+            for (Long userId : users) {
+                CartState cart = carts.get(userId);
+                // A cart being flushed by checkout is skipped and picked up next round if still dirty
+                if (cart == null || !cart.flushLock.tryLock()) {
+                    continue;
+                }
+                locked.add(cart);
+                Pending pending = snapshot(userId, cart);
+                if (pending != null) {
+                    batch.add(pending);
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                markFlushed(batch);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Cart flush of {} carts failed, will retry", batch.size(), e);
+        } finally {
+            locked.forEach(cart -> cart.flushLock.unlock());
+        }
+    }
+
+    private Pending snapshot(Long userId, CartState cart) {
+        synchronized (stripe(userId)) {
+            if (cart.version == cart.flushedVersion) {
+                dirty.remove(userId);
+                return null;
+            }
+            return new Pending(userId, cart, cart.cartId, cart.version, new ArrayList<>(cart.lines.values()));
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        flushTransaction.executeWithoutResult(status -> {
+            List<Long> cartIds = new ArrayList<>();
+            List<BigDecimal> totals = new ArrayList<>();
+            List<CartJdbcRepository.Line> rows = new ArrayList<>();
+            for (Pending pending : batch) {
+                BigDecimal total = total(pending.lines);
+                if (pending.cartId == null) {
+                    pending.cartId = cartJdbcRepository.upsertCart(pending.userId, total);
+                } else {
+                    cartIds.add(pending.cartId);
+                    totals.add(total);
+                }
+                for (Line line : pending.lines) {
+                    rows.add(new CartJdbcRepository.Line(pending.cartId, line.getProductId(), line.getQuantity(), line.getPrice()));
+                }
+            }
+            if (!cartIds.isEmpty()) {
+                cartJdbcRepository.updateTotals(cartIds, totals);
+            }
+            cartJdbcRepository.replaceItems(batch.stream().map(pending -> pending.cartId).toList(), rows);
+        });
+    }
+
+    private void markFlushed(List<Pending> batch) {
+        for (Pending pending : batch) {
+            synchronized (stripe(pending.userId)) {
+                pending.cart.cartId = pending.cartId;
+                pending.cart.flushedVersion = pending.version;
+                if (pending.cart.version == pending.version) {
+                    dirty.remove(pending.userId);
+                }
+            }
+        }
+    }
+
+    // The order's commit emptied the database cart. Lines still exactly as ordered leave memory
+    // too; lines added or changed since the checkout flush stay, and the cart stays dirty so the
+    // flusher writes them back.
+    private void dropOrdered(Pending ordered) {
+        CartState cart = ordered.cart;
+        synchronized (stripe(ordered.userId)) {
+            cart.cartId = ordered.cartId;
+            if (cart.version == ordered.version) {
+                cart.lines.clear();
+                cart.version++;
+                cart.flushedVersion = cart.version;
+                dirty.remove(ordered.userId);
+                return;
+            }
+            // Lines are replaced, never modified, on every change, so an unchanged line is the same object
+            ordered.lines.forEach(line -> cart.lines.remove(line.getProductId(), line));
+            cart.version++;
+            dirty.add(ordered.userId);
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleEvictMs;
+        for (Map.Entry<Long, CartState> entry : carts.entrySet()) {
+            CartState cart = entry.getValue();
+            if (cart.lastAccess < cutoff && cart.flushLock.tryLock()) {
+                try {
+                    synchronized (stripe(entry.getKey())) {
+                        if (cart.version == cart.flushedVersion && cart.lastAccess < cutoff) {
+                            carts.remove(entry.getKey());
+                        }
+                    }
+                } finally {
+                    cart.flushLock.unlock();
+                }
+            }
+        }
+    }
+
+    // Caller holds the user's stripe
+    private CartState load(Long userId) {
+        CartState cart = carts.get(userId);
+        if (cart == null) {
+            cart = new CartState();
+            for (CartJdbcRepository.Line row : cartJdbcRepository.load(userId)) {
+                cart.cartId = row.getCartId();
+                if (row.getProductId() != null) {
+                    cart.lines.put(row.getProductId(), new Line(row.getProductId(), row.getQuantity(), row.getPrice()));
+                }
+            }
+            carts.put(userId, cart);
+        }
+        return cart;
+    }
+
+    private Object stripe(Long userId) {
+        return stripes[Math.floorMod(Long.hashCode(userId), STRIPES)];
+    }
+
+    private static BigDecimal total(List<Line> lines) {
+        return lines.stream()
+                .map(line -> line.getPrice().multiply(BigDecimal.valueOf(line.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Line {
+        private final Long productId;
+        private final Integer quantity;
+        private final BigDecimal price;
+
+        public Line withQuantity(Integer quantity) {
+            return new Line(productId, quantity, price);
+        }
+    }
+
+    private static final class CartState {
+        private final Map<Long, Line> lines = new LinkedHashMap<>();
+        private final ReentrantLock flushLock = new ReentrantLock();
+        private Long cartId;
+        private long version;
+        private long flushedVersion;
+        // What a checkout flushed, while its transaction is open; touched only under flushLock
+        private Pending checkout;
+        private long lastAccess = System.currentTimeMillis();
+    }
+
+    private static final class Pending {
+        private final Long userId;
+        private final CartState cart;
+        private Long cartId;
+        private final long version;
+        private final List<Line> lines;
+        // Set when an order was placed from these lines in the flushing transaction
+        private boolean ordered;
+
+        private Pending(Long userId, CartState cart, Long cartId, long version, List<Line> lines) {
+            this.userId = userId;
+            this.cart = cart;
+            this.cartId = cartId;
+            this.version = version;
+            this.lines = lines;
+        }
+    }
+}
@@ -1,10 +1,23 @@
 package com.sanjay.ecommerce.service;
 
+import com.sanjay.ecommerce.dto.CartDTO;
+import com.sanjay.ecommerce.dto.CartItemDTO;
+import com.sanjay.ecommerce.dto.ProductDTO;
+import com.sanjay.ecommerce.dto.StockHoldDTO;
 import com.sanjay.ecommerce.model.*;
 import com.sanjay.ecommerce.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -14,8 +27,50 @@ public class CartService {
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final CartMemoryStore cartMemoryStore;
+    private final CatalogIndex catalogIndex;
+    private final StockReservations stockReservations;
 
-    public Cart getUserCart(Long userId) {
+    // "database" writes every change through JPA; "memory" keeps carts in CartMemoryStore and flushes them behind
+    @Value("${cart.store:database}")
+    private String cartStore;
+
+    public CartDTO getUserCart(Long userId) {
+        if (memoryStore()) {
+            return toDto(cartMemoryStore.read(userId));
+        }
+        return toDto(findOrCreateCart(userId));
+    }
+
+    // The persistent cart an order is built from; pending in-memory changes are written first
+    public Cart getCheckoutCart(Long userId) {
+        if (memoryStore()) {
+            cartMemoryStore.flush(userId);
+        }
+        return findOrCreateCart(userId);
+    }
+
+    // "Proceed to checkout": sets the cart's units aside for this user until the hold expires
+    public StockHoldDTO holdCart(Long userId) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (CartItemDTO item : getUserCart(userId).getItems()) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        if (quantities.isEmpty()) {
+            throw new RuntimeException("Cart is empty");
+        }
+        StockReservations.Hold hold = stockReservations.hold(userId, quantities);
+        return StockHoldDTO.builder()
+                .quantities(hold.getQuantities())
+                .expiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(hold.getExpiresAt()), ZoneId.systemDefault()))
+                .build();
+    }
+
+    public void releaseHold(Long userId) {
+        stockReservations.release(userId);
+    }
+
+    private Cart findOrCreateCart(Long userId) {
         return cartRepository.findByUserId(userId)
                 .orElseGet(() -> createCart(userId));
     }
@@ -29,12 +84,22 @@ public class CartService {
         return cartRepository.save(cart);
     }
 
-    public Cart addToCart(Long userId, Long productId, Integer quantity) {
-        Cart cart = getUserCart(userId);
+    public CartDTO addToCart(Long userId, Long productId, Integer quantity) {
+        if (memoryStore()) {
+            ProductDTO product = findProduct(productId);
+            if (stockReservations.available(productId, userId) < quantity) {
+                throw new RuntimeException("Insufficient stock");
+            }
+            return toDto(cartMemoryStore.update(userId, lines -> lines.merge(productId,
+                    new CartMemoryStore.Line(productId, quantity, product.getPrice()),
+                    (existing, added) -> existing.withQuantity(existing.getQuantity() + quantity))));
+        }
+
+        Cart cart = findOrCreateCart(userId);
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
-        if (product.getStock() < quantity) {
+        if (stockReservations.available(productId, userId) < quantity) {
             throw new RuntimeException("Insufficient stock");
         }
 
@@ -56,15 +121,28 @@ public class CartService {
         }
 
         cart.calculateTotalPrice();
-        return cartRepository.save(cart);
+        return toDto(cartRepository.save(cart));
     }
 
-    public Cart updateCartItem(Long userId, Long itemId, Integer quantity) {
-        Cart cart = getUserCart(userId);
-        CartItem item = cartItemRepository.findById(itemId)
-                .orElseThrow(() -> new RuntimeException("Cart item not found"));
+    public CartDTO updateCartItem(Long userId, Long itemId, Integer quantity) {
+        if (memoryStore()) {
+            // In memory the item id is the product id
+            if (stockReservations.available(itemId, userId) < quantity) {
+                throw new RuntimeException("Insufficient stock");
+            }
+            return toDto(cartMemoryStore.update(userId, lines -> {
+                CartMemoryStore.Line line = lines.get(itemId);
+                if (line == null) {
+                    throw new RuntimeException("Cart item not found");
+                }
+                lines.put(itemId, line.withQuantity(quantity));
+            }));
+        }
+
+        Cart cart = findOrCreateCart(userId);
+        CartItem item = findOwnItem(cart, itemId);
 
-        if (item.getProduct().getStock() < quantity) {
+        if (stockReservations.available(item.getProduct().getId(), userId) < quantity) {
             throw new RuntimeException("Insufficient stock");
         }
 
@@ -72,20 +150,120 @@ public class CartService {
         cartItemRepository.save(item);
 
         cart.calculateTotalPrice();
-        return cartRepository.save(cart);
+        return toDto(cartRepository.save(cart));
     }
 
-    public Cart removeFromCart(Long userId, Long itemId) {
-        Cart cart = getUserCart(userId);
-        cartItemRepository.deleteById(itemId);
+    public CartDTO removeFromCart(Long userId, Long itemId) {
+        if (memoryStore()) {
+            return toDto(cartMemoryStore.update(userId, lines -> {
+                if (lines.remove(itemId) == null) {
+                    throw new RuntimeException("Cart item not found");
+                }
+            }));
+        }
+
+        Cart cart = findOrCreateCart(userId);
+        CartItem item = findOwnItem(cart, itemId);
+        cart.getItems().remove(item);
+        cartItemRepository.delete(item);
         cart.calculateTotalPrice();
-        return cartRepository.save(cart);
+        return toDto(cartRepository.save(cart));
     }
 
     public void clearCart(Long userId) {
-        Cart cart = getUserCart(userId);
+        if (memoryStore()) {
+            cartMemoryStore.update(userId, lines -> lines.clear());
+            return;
+        }
+        clearCart(findOrCreateCart(userId));
+    }
+
+    // Empties the cart an order was placed from, inside the order's transaction
+    public void clearCheckoutCart(Long userId, Cart cart) {
+        clearCart(cart);
+        if (memoryStore()) {
+            // The database copy is emptied by the order commit; the in-memory copy follows once it lands
+            cartMemoryStore.clearOrdered(userId);
+        }
+    }
+
+    // One DELETE for all items rather than one per item
+    private void clearCart(Cart cart) {
+        cartItemRepository.deleteByCartId(cart.getId());
         cart.getItems().clear();
         cart.calculateTotalPrice();
         cartRepository.save(cart);
     }
-}
\ No newline at end of file
+
+    private CartItem findOwnItem(Cart cart, Long itemId) {
+        return cart.getItems().stream()
+                .filter(item -> item.getId().equals(itemId))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Cart item not found"));
+    }
+
+    private ProductDTO findProduct(Long productId) {
+        ProductDTO product = catalogIndex.current().findById(productId);
+        if (product != null) {
+            return product;
+        }
+        return productRepository.findDtoById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+    }
+
+    private boolean memoryStore() {
+        return "memory".equals(cartStore);
+    }
+
+    private CartDTO toDto(List<CartMemoryStore.Line> lines) {
+        List<CartItemDTO> items = lines.stream()
+                .map(line -> CartItemDTO.builder()
+                        .id(line.getProductId())
+                        .product(findProduct(line.getProductId()))
+                        .quantity(line.getQuantity())
+                        .price(line.getPrice())
+                        .build())
+                .toList();
+        BigDecimal total = lines.stream()
+                .map(line -> line.getPrice().multiply(BigDecimal.valueOf(line.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return CartDTO.builder()
+                .items(items)
+                .totalPrice(total)
+                .build();
+    }
+
+    private CartDTO toDto(Cart cart) {
+        List<CartItemDTO> items = cart.getItems().stream()
+                .sorted(Comparator.comparing(CartItem::getId))
+                .map(item -> CartItemDTO.builder()
+                        .id(item.getId())
+                        .product(toDto(item.getProduct()))
+                        .quantity(item.getQuantity())
+                        .price(item.getPrice())
+                        .build())
+                .toList();
+        return CartDTO.builder()
+                .id(cart.getId())
+                .items(items)
+                .totalPrice(cart.getTotalPrice() != null ? cart.getTotalPrice() : BigDecimal.ZERO)
+                .build();
+    }
+
+    private static ProductDTO toDto(Product product) {
+        Category category = product.getCategory();
+        return ProductDTO.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .stock(product.getStock())
+                .imageUrl(product.getImageUrl())
+                .categoryId(category != null ? category.getId() : null)
+                .categoryName(category != null ? category.getName() : null)
+                .averageRating(product.getAverageRating())
+                .reviewCount(product.getReviewCount())
+                .createdAt(product.getCreatedAt())
+                .build();
+    }
+}
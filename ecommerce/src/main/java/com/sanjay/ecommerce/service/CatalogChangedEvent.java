@@ -0,0 +1,13 @@
+package com.sanjay.ecommerce.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CatalogChangedEvent {
+    // Structural changes (products added, removed or edited) rebuild the catalog snapshot as soon
+    // as they commit; stock and rating changes are patched in by the next scheduled refresh
+    private final Long productId;
+    private final boolean structural;
+}
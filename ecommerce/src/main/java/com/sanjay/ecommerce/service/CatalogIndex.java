@@ -0,0 +1,115 @@
+package com.sanjay.ecommerce.service;
+
+import com.sanjay.ecommerce.dto.ProductDTO;
+import com.sanjay.ecommerce.repository.ProductRepository;
+import com.sanjay.ecommerce.repository.ProductSort;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogIndex {
+    private final ProductRepository productRepository;
+    private final CatalogVersions catalogVersions;
+
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.empty();
+    private final AtomicBoolean stale = new AtomicBoolean(true);
+    // Products whose stock or rating changed since the snapshot read them. Guarded by itself, which
+    // also covers the version bump, so a snapshot's stamp covers exactly the changes it has read.
+    private final Set<Long> changed = new HashSet<>();
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CatalogSnapshot current() {
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.isStructural() || event.getProductId() == null) {
+            // Bump before any rebuild can start so a snapshot never carries an older version than its data
+            catalogVersions.bump(event.getProductId());
+            stale.set(true);
+            // Rebuild off the committing thread: its session is still bound and must not be reused
+            rebuildExecutor.execute(this::refreshIfStale);
+            return;
+        }
+        synchronized (changed) {
+            catalogVersions.bump(event.getProductId());
+            changed.add(event.getProductId());
+        }
+    }
+
+    // A rebuild when products were added, removed or edited; otherwise only the products whose
+    // stock or rating changed are read again
+    @Scheduled(fixedDelayString = "${catalog.snapshot.refresh-interval-ms:5000}")
+    public void refreshIfStale() {
+        if (stale.get()) {
+            rebuild();
+        } else {
+            patch();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    // Builds a new snapshot off to the side and swaps it in; readers never block on a rebuild
+    public synchronized void rebuild() {
+        stale.set(false);
+        CatalogVersions.Stamp stamp;
+        synchronized (changed) {
+            changed.clear();
+            stamp = catalogVersions.global();
+        }
+        List<ProductDTO> products = productRepository.findSlice(null, ProductSort.DEFAULT, null, null);
+        snapshot = CatalogSnapshot.of(products, stamp);
+        log.debug("Catalog snapshot rebuilt with {} products", products.size());
+    }
+
+    private synchronized void patch() {
+        List<Long> ids;
+        CatalogVersions.Stamp stamp;
+        synchronized (changed) {
+            if (changed.isEmpty()) {
+                return;
+            }
+            ids = new ArrayList<>(changed);
+            changed.clear();
+            stamp = catalogVersions.global();
+        }
+        // Products deleted since are not returned; their structural change brings a rebuild
+        CatalogSnapshot patched = snapshot.withUpdates(productRepository.findDtosByIdIn(ids), stamp);
+        if (patched == null) {
+            rebuild();
+            return;
+        }
+        snapshot = patched;
+        log.debug("Catalog snapshot patched for {} products", ids.size());
+    }
+}
@@ -0,0 +1,409 @@
+package com.sanjay.ecommerce.service;
+
+import com.sanjay.ecommerce.dto.ProductDTO;
+import com.sanjay.ecommerce.repository.ProductSort;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+
+// Immutable, column-oriented view of the catalog. Ordinals are positions in id order; every
+// sort mode has a global permutation and one grouped by category, so a listing is a slice
+// of a permutation array instead of a sort over entities. Permutations are radix sorts of
+// primitive keys. Stock and rating changes are patched into a copy that shares every array
+// they do not touch.
+public final class CatalogSnapshot {
+    private static final long NO_CATEGORY = -1L;
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+    private static final BigDecimal MAX_CENTS = BigDecimal.valueOf(Long.MAX_VALUE);
+    private static final BigDecimal MIN_CENTS = BigDecimal.valueOf(Long.MIN_VALUE);
+    // Beyond this many changed ratings a patch sorts the rating orders again instead of moving entries
+    private static final int MAX_MOVED_RATINGS = 64;
+
+    private final CatalogVersions.Stamp stamp;
+    // New with every full build, kept by patched copies
+    private final long generation;
+    private final ProductDTO[] products;
+    private final long[] ids;
+    private final long[] priceCents;
+    private final double[] ratings;
+    private final long[] createdAt;
+
+    // Sorted distinct category ids; category c owns [categoryStarts[c], categoryStarts[c + 1]) of every grouped order
+    private final long[] categoryIds;
+    private final int[] categoryStarts;
+    // Position of each ordinal's category in categoryIds
+    private final int[] categoryOf;
+
+    private final int[][] globalOrder;
+    private final int[][] groupedOrder;
+
+    private CatalogSnapshot(List<ProductDTO> source, CatalogVersions.Stamp stamp) {
+        this.stamp = stamp;
+        this.generation = GENERATIONS.incrementAndGet();
+        ProductDTO[] sorted = source.toArray(new ProductDTO[0]);
+        Arrays.sort(sorted, Comparator.comparing(ProductDTO::getId));
+        int size = sorted.length;
+
+        this.products = sorted;
+        this.ids = new long[size];
+        this.priceCents = new long[size];
+        this.ratings = new double[size];
+        this.createdAt = new long[size];
+        long[] productCategory = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            ProductDTO product = sorted[i];
+            ids[i] = product.getId();
+            priceCents[i] = toCents(product.getPrice(), RoundingMode.HALF_UP);
+            ratings[i] = product.getAverageRating() != null ? product.getAverageRating() : 0.0;
+            createdAt[i] = product.getCreatedAt() != null ? toEpochMicros(product.getCreatedAt()) : 0L;
+            productCategory[i] = product.getCategoryId() != null ? product.getCategoryId() : NO_CATEGORY;
+        }
+
+        this.categoryIds = Arrays.stream(productCategory).distinct().sorted().toArray();
+        this.categoryOf = new int[size];
+        int[] counts = new int[categoryIds.length];
+        for (int i = 0; i < size; i++) {
+            categoryOf[i] = Arrays.binarySearch(categoryIds, productCategory[i]);
+            counts[categoryOf[i]]++;
+        }
+        this.categoryStarts = new int[categoryIds.length + 1];
+        for (int c = 0; c < counts.length; c++) {
+            categoryStarts[c + 1] = categoryStarts[c] + counts[c];
+        }
+
+        ProductSort[] sorts = ProductSort.values();
+        this.globalOrder = new int[sorts.length][];
+        this.groupedOrder = new int[sorts.length][];
+        for (ProductSort sort : sorts) {
+            sortBy(sort);
+        }
+    }
+
+    // The base with some products replaced; in the rating orders only the ordinals whose rating
+    // moved change places
+    private CatalogSnapshot(CatalogSnapshot base, ProductDTO[] products, double[] ratings, int[] moved,
+                            CatalogVersions.Stamp stamp) {
+        this.stamp = stamp;
+        this.generation = base.generation;
+        this.products = products;
+        this.ids = base.ids;
+        this.priceCents = base.priceCents;
+        this.ratings = ratings;
+        this.createdAt = base.createdAt;
+        this.categoryIds = base.categoryIds;
+        this.categoryStarts = base.categoryStarts;
+        this.categoryOf = base.categoryOf;
+        this.globalOrder = base.globalOrder.clone();
+        this.groupedOrder = base.groupedOrder.clone();
+        if (moved.length > MAX_MOVED_RATINGS) {
+            sortBy(ProductSort.RATING);
+        } else if (moved.length > 0) {
+            int sort = ProductSort.RATING.ordinal();
+            globalOrder[sort] = reposition(globalOrder[sort], moved, this::compareRating);
+            groupedOrder[sort] = reposition(groupedOrder[sort], moved, (a, b) -> categoryOf[a] != categoryOf[b]
+                    ? Integer.compare(categoryOf[a], categoryOf[b])
+                    : compareRating(a, b));
+        }
+    }
+
+    public static CatalogSnapshot of(List<ProductDTO> products, CatalogVersions.Stamp stamp) {
+        return new CatalogSnapshot(products, stamp);
+    }
+
+    // A copy with the given products' stock and ratings replaced. Returns null when an update
+    // changes anything else or names a product the snapshot does not hold; that takes a rebuild.
+    public CatalogSnapshot withUpdates(List<ProductDTO> updates, CatalogVersions.Stamp newStamp) {
+        ProductDTO[] patched = products.clone();
+        double[] patchedRatings = ratings;
+        int[] moved = new int[updates.size()];
+        int movedCount = 0;
+        for (ProductDTO update : updates) {
+            int ordinal = Arrays.binarySearch(ids, update.getId());
+            if (ordinal < 0 || !sameListing(products[ordinal], update)) {
+                return null;
+            }
+            patched[ordinal] = update;
+            double rating = update.getAverageRating() != null ? update.getAverageRating() : 0.0;
+            if (rating != patchedRatings[ordinal]) {
+                if (patchedRatings == ratings) {
+                    patchedRatings = ratings.clone();
+                }
+                patchedRatings[ordinal] = rating;
+                moved[movedCount++] = ordinal;
+            }
+        }
+        return new CatalogSnapshot(this, patched, patchedRatings,
+                Arrays.stream(moved, 0, movedCount).distinct().toArray(), newStamp);
+    }
+
+    public static CatalogSnapshot empty() {
+        return new CatalogSnapshot(List.of(), new CatalogVersions.Stamp(-1, 0));
+    }
+
+    // Catalog version the snapshot is at least as new as; listing ETags are derived from it
+    public CatalogVersions.Stamp getStamp() {
+        return stamp;
+    }
+
+    // Equal for snapshots with the same products, names and categories; differs after a rebuild
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int size() {
+        return products.length;
+    }
+
+    public List<ProductDTO> all() {
+        return new ArrayList<>(Arrays.asList(products));
+    }
+
+    public ProductDTO findById(Long id) {
+        int ordinal = Arrays.binarySearch(ids, id);
+        return ordinal >= 0 ? products[ordinal] : null;
+    }
+
+    // Ordinals whose price lies in [minPrice, maxPrice], found by binary search on the price order
+    public int[] ordinalsInPriceRange(Double minPrice, Double maxPrice) {
+        int[] order = globalOrder[ProductSort.PRICE_LOW.ordinal()];
+        long min = priceBound(minPrice, RoundingMode.CEILING, Long.MIN_VALUE);
+        long max = priceBound(maxPrice, RoundingMode.FLOOR, Long.MAX_VALUE);
+        int lo = firstIndex(order, 0, order.length, i -> priceCents[i] >= min);
+        int hi = firstIndex(order, lo, order.length, i -> priceCents[i] > max);
+        return Arrays.copyOfRange(order, lo, hi);
+    }
+
+    public List<ProductDTO> query(Long categoryId, ProductSort sort, Double minPrice, Double maxPrice) {
+        int[] order;
+        int from;
+        int to;
+        if (categoryId != null) {
+            int c = Arrays.binarySearch(categoryIds, categoryId);
+            if (c < 0) {
+                return new ArrayList<>();
+            }
+            order = groupedOrder[sort.ordinal()];
+            from = categoryStarts[c];
+            to = categoryStarts[c + 1];
+        } else {
+            order = globalOrder[sort.ordinal()];
+            from = 0;
+            to = order.length;
+        }
+
+        long min = priceBound(minPrice, RoundingMode.CEILING, Long.MIN_VALUE);
+        long max = priceBound(maxPrice, RoundingMode.FLOOR, Long.MAX_VALUE);
+
+        List<ProductDTO> result = new ArrayList<>();
+        if (sort == ProductSort.PRICE_LOW) {
+            // Prices ascend within the range, so the filter is two binary searches
+            int lo = firstIndex(order, from, to, i -> priceCents[i] >= min);
+            int hi = firstIndex(order, lo, to, i -> priceCents[i] > max);
+            for (int i = lo; i < hi; i++) {
+                result.add(products[order[i]]);
+            }
+        } else if (sort == ProductSort.PRICE_HIGH) {
+            int lo = firstIndex(order, from, to, i -> priceCents[i] <= max);
+            int hi = firstIndex(order, lo, to, i -> priceCents[i] < min);
+            for (int i = lo; i < hi; i++) {
+                result.add(products[order[i]]);
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                int ordinal = order[i];
+                if (priceCents[ordinal] >= min && priceCents[ordinal] <= max) {
+                    result.add(products[ordinal]);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Ties always fall back to the id, which is the ordinal order: ascending sorts keep equal keys
+    // in ordinal order, and descending ones are those orders reversed. The grouped order is the
+    // global one distributed stably over the categories.
+    private void sortBy(ProductSort sort) {
+        int size = ids.length;
+        int[] global;
+        switch (sort) {
+            case PRICE_LOW:
+                global = sortByKey(priceCents, false);
+                break;
+            case PRICE_HIGH:
+                global = sortByKey(priceCents, true);
+                break;
+            case RATING:
+                long[] ratingKeys = new long[size];
+                for (int i = 0; i < size; i++) {
+                    ratingKeys[i] = sortableBits(ratings[i]);
+                }
+                global = sortByKey(ratingKeys, true);
+                break;
+            case NEWEST:
+                global = sortByKey(createdAt, true);
+                break;
+            default:
+                global = new int[size];
+                Arrays.setAll(global, i -> i);
+        }
+        int[] next = Arrays.copyOf(categoryStarts, categoryIds.length);
+        int[] grouped = new int[size];
+        for (int ordinal : global) {
+            grouped[next[categoryOf[ordinal]]++] = ordinal;
+        }
+        globalOrder[sort.ordinal()] = global;
+        groupedOrder[sort.ordinal()] = grouped;
+    }
+
+    // Rating order: highest rating first, then highest id
+    private int compareRating(int a, int b) {
+        int byRating = Double.compare(ratings[b], ratings[a]);
+        return byRating != 0 ? byRating : Integer.compare(b, a);
+    }
+
+    // Everything but stock and rating, which are all a non-structural change may touch
+    private static boolean sameListing(ProductDTO current, ProductDTO update) {
+        return Objects.equals(current.getName(), update.getName())
+                && Objects.equals(current.getDescription(), update.getDescription())
+                && current.getPrice().compareTo(update.getPrice()) == 0
+                && Objects.equals(current.getImageUrl(), update.getImageUrl())
+                && Objects.equals(current.getCategoryId(), update.getCategoryId())
+                && Objects.equals(current.getCategoryName(), update.getCategoryName())
+                && Objects.equals(current.getCreatedAt(), update.getCreatedAt());
+    }
+
+    // Ordinals by ascending signed key, equal keys in ordinal order, or exactly the reverse: a stable
+    // LSD radix sort that skips the bytes every key shares
+    private static int[] sortByKey(long[] keys, boolean descending) {
+        int size = keys.length;
+        int[] order = new int[size];
+        Arrays.setAll(order, i -> i);
+        long differing = 0;
+        for (long key : keys) {
+            differing |= key ^ keys[0];
+        }
+        int[] buffer = new int[size];
+        int[] counts = new int[257];
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            if (((differing >>> shift) & 0xFF) == 0) {
+                continue;
+            }
+            Arrays.fill(counts, 0);
+            for (int ordinal : order) {
+                counts[digit(keys[ordinal], shift) + 1]++;
+            }
+            for (int b = 0; b < 256; b++) {
+                counts[b + 1] += counts[b];
+            }
+            for (int ordinal : order) {
+                buffer[counts[digit(keys[ordinal], shift)]++] = ordinal;
+            }
+            int[] sorted = buffer;
+            buffer = order;
+            order = sorted;
+        }
+        if (descending) {
+            for (int i = 0, j = size - 1; i < j; i++, j--) {
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+        }
+        return order;
+    }
+
+    // Byte of the key at shift, with the sign bit flipped so signed keys sort as unsigned bytes
+    private static int digit(long key, int shift) {
+        return (int) (((key ^ Long.MIN_VALUE) >>> shift) & 0xFF);
+    }
+
+    // A long that orders like Double.compare orders the value
+    private static long sortableBits(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    // The order with the moved ordinals taken out and merged back in where the comparator now puts them
+    private static int[] reposition(int[] order, int[] moved, IntBinaryOperator comparator) {
+        int[] byOrdinal = moved.clone();
+        Arrays.sort(byOrdinal);
+        int[] byOrder = moved.clone();
+        for (int i = 1; i < byOrder.length; i++) {
+            int ordinal = byOrder[i];
+            int j = i;
+            while (j > 0 && comparator.applyAsInt(byOrder[j - 1], ordinal) > 0) {
+                byOrder[j] = byOrder[j - 1];
+                j--;
+            }
+            byOrder[j] = ordinal;
+        }
+        int[] result = new int[order.length];
+        int n = 0;
+        int next = 0;
+        for (int ordinal : order) {
+            if (Arrays.binarySearch(byOrdinal, ordinal) >= 0) {
+                continue;
+            }
+            while (next < byOrder.length && comparator.applyAsInt(byOrder[next], ordinal) < 0) {
+                result[n++] = byOrder[next++];
+            }
+            result[n++] = ordinal;
+        }
+        while (next < byOrder.length) {
+            result[n++] = byOrder[next++];
+        }
+        return result;
+    }
+
+    // First position in [from, to) whose ordinal satisfies a predicate that is monotonic over the range
+    private static int firstIndex(int[] order, int from, int to, IntPredicate predicate) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (predicate.test(order[mid])) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    private static long toEpochMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+    }
+
+    // A filter price in cents; no price means unbounded, and infinities clamp like any other huge value
+    private static long priceBound(Double price, RoundingMode rounding, long unbounded) {
+        if (price == null || price.isNaN()) {
+            return unbounded;
+        }
+        if (price.isInfinite()) {
+            return price > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        return toCents(BigDecimal.valueOf(price), rounding);
+    }
+
+    // Clamped to the long range rather than narrowed, which would wrap huge amounts
+    private static long toCents(BigDecimal amount, RoundingMode rounding) {
+        BigDecimal cents = amount.movePointRight(2).setScale(0, rounding);
+        if (cents.compareTo(MAX_CENTS) > 0) {
+            return Long.MAX_VALUE;
+        }
+        if (cents.compareTo(MIN_CENTS) < 0) {
+            return Long.MIN_VALUE;
+        }
+        return cents.longValueExact();
+    }
+}
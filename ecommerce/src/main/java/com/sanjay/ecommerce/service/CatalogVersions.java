@@ -0,0 +1,53 @@
+package com.sanjay.ecommerce.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Version stamps for conditional GETs on catalog endpoints: one global counter plus the
+// counter value at which each product last changed. The boot epoch is part of every ETag
+// so tags issued before a restart never match counters that restarted from zero.
+@Component
+public class CatalogVersions {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Stamp initial = new Stamp(0, System.currentTimeMillis() / 1000 * 1000);
+
+    private volatile Stamp global = initial;
+    // Stamp of products without a change of their own since the last catalog-wide change
+    private volatile Stamp floor = initial;
+    private final Map<Long, Stamp> products = new ConcurrentHashMap<>();
+
+    public synchronized void bump(Long productId) {
+        // HTTP dates have second precision; keep lastModified moving forward even within a second
+        long now = Math.max(System.currentTimeMillis() / 1000 * 1000, global.getModifiedAt());
+        global = new Stamp(global.getVersion() + 1, now);
+        if (productId != null) {
+            products.put(productId, global);
+        } else {
+            // Catalog-wide change (bulk import): every product counts as changed now
+            floor = global;
+            products.clear();
+        }
+    }
+
+    public Stamp global() {
+        return global;
+    }
+
+    public Stamp product(Long productId) {
+        return products.getOrDefault(productId, floor);
+    }
+
+    public String etag(String scope, Stamp stamp) {
+        return "\"" + scope + "-" + epoch + "-" + stamp.getVersion() + "\"";
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stamp {
+        private final long version;
+        private final long modifiedAt;
+    }
+}
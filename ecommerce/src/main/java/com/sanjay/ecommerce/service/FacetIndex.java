@@ -0,0 +1,277 @@
+package com.sanjay.ecommerce.service;
+
+import com.sanjay.ecommerce.dto.FacetValueDTO;
+import com.sanjay.ecommerce.dto.FacetsDTO;
+import com.sanjay.ecommerce.dto.ProductDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+// Facet counts over the catalog snapshot. Every facet value owns a compressed bitmap of
+// product ordinals; a filter combination is a bitmap AND and each count is the cardinality
+// of that AND with the value's bitmap, so no request scans products. Newer snapshots are
+// applied off the request thread: a rebuild after structural changes, otherwise only the
+// stock and rating bits of the products that changed.
+@Component
+@RequiredArgsConstructor
+public class FacetIndex {
+    // Lower bound inclusive, upper exclusive; a null upper bound leaves the band open
+    private static final Double[][] PRICE_BANDS = {
+            {0.0, 500.0}, {500.0, 1000.0}, {1000.0, 5000.0}, {5000.0, 10000.0}, {10000.0, null}
+    };
+    private static final int[] RATING_THRESHOLDS = {4, 3, 2, 1};
+
+    private final CatalogIndex catalogIndex;
+
+    private volatile Bitmaps bitmaps;
+    private final AtomicBoolean building = new AtomicBoolean();
+
+    private final ExecutorService buildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "facet-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        buildExecutor.shutdownNow();
+    }
+
+    // Version of the counts facets() answers with right now, which may trail the catalog briefly
+    public CatalogVersions.Stamp stamp() {
+        return currentBitmaps().source.getStamp();
+    }
+
+    public FacetsDTO facets(Long categoryId, Double minPrice, Double maxPrice, Integer minRating, Boolean inStock) {
+        Bitmaps current = currentBitmaps();
+
+        RoaringBitmap categoryFilter = categoryId == null ? null
+                : current.categories.getOrDefault(categoryId, RoaringBitmap.EMPTY);
+        RoaringBitmap priceFilter = minPrice == null && maxPrice == null ? null
+                : RoaringBitmap.ofUnsorted(current.source.ordinalsInPriceRange(minPrice, maxPrice));
+        RoaringBitmap ratingFilter = minRating == null ? null : current.ratingAtLeast(minRating);
+        RoaringBitmap stockFilter = Boolean.TRUE.equals(inStock) ? current.inStock : null;
+
+        // Each facet is counted against every filter except its own, so choosing a value
+        // in one facet does not hide its alternatives
+        RoaringBitmap withoutCategory = intersect(priceFilter, ratingFilter, stockFilter);
+        RoaringBitmap withoutPrice = intersect(categoryFilter, ratingFilter, stockFilter);
+        RoaringBitmap withoutRating = intersect(categoryFilter, priceFilter, stockFilter);
+        RoaringBitmap withoutStock = intersect(categoryFilter, priceFilter, ratingFilter);
+        RoaringBitmap all = intersect(categoryFilter, withoutCategory);
+
+        List<FacetValueDTO> categories = new ArrayList<>();
+        current.categories.forEach((id, bitmap) -> categories.add(FacetValueDTO.builder()
+                .value(String.valueOf(id))
+                .label(current.categoryNames.get(id))
+                .count(count(bitmap, withoutCategory))
+                .build()));
+
+        List<FacetValueDTO> priceBands = new ArrayList<>();
+        for (int band = 0; band < PRICE_BANDS.length; band++) {
+            priceBands.add(FacetValueDTO.builder()
+                    .value(bandValue(band))
+                    .label(bandLabel(band))
+                    .count(count(current.priceBands[band], withoutPrice))
+                    .build());
+        }
+
+        List<FacetValueDTO> ratings = new ArrayList<>();
+        for (int i = 0; i < RATING_THRESHOLDS.length; i++) {
+            ratings.add(FacetValueDTO.builder()
+                    .value(String.valueOf(RATING_THRESHOLDS[i]))
+                    .label(RATING_THRESHOLDS[i] + " & up")
+                    .count(count(current.ratings[i], withoutRating))
+                    .build());
+        }
+
+        return FacetsDTO.builder()
+                .total(all == null ? current.source.size() : all.cardinality())
+                .categories(categories)
+                .priceBands(priceBands)
+                .ratings(ratings)
+                .inStock(FacetValueDTO.builder()
+                        .value("true")
+                        .label("In stock")
+                        .count(count(current.inStock, withoutStock))
+                        .build())
+                .build();
+    }
+
+    // Only the very first bitmaps are built on a request thread; later snapshots are applied by
+    // the indexer while the current bitmaps keep answering
+    private Bitmaps currentBitmaps() {
+        Bitmaps current = bitmaps;
+        if (current == null) {
+            synchronized (this) {
+                if (bitmaps == null) {
+                    bitmaps = new Bitmaps(catalogIndex.current());
+                }
+                current = bitmaps;
+            }
+        }
+        if (current.source != catalogIndex.current() && building.compareAndSet(false, true)) {
+            buildExecutor.execute(() -> {
+                try {
+                    Bitmaps latest = bitmaps;
+                    CatalogSnapshot snapshot = catalogIndex.current();
+                    bitmaps = latest.source.getGeneration() == snapshot.getGeneration()
+                            ? latest.patched(snapshot)
+                            : new Bitmaps(snapshot);
+                } finally {
+                    building.set(false);
+                }
+            });
+        }
+        return current;
+    }
+
+    private static int count(RoaringBitmap value, RoaringBitmap filter) {
+        return filter == null ? value.cardinality() : value.andCardinality(filter);
+    }
+
+    // null stands for "no constraint"
+    private static RoaringBitmap intersect(RoaringBitmap... parts) {
+        RoaringBitmap result = null;
+        for (RoaringBitmap part : parts) {
+            if (part != null) {
+                result = result == null ? part : result.and(part);
+            }
+        }
+        return result;
+    }
+
+    private static String bandValue(int band) {
+        Double[] range = PRICE_BANDS[band];
+        return range[1] == null ? range[0].longValue() + "-" : range[0].longValue() + "-" + range[1].longValue();
+    }
+
+    private static String bandLabel(int band) {
+        Double[] range = PRICE_BANDS[band];
+        if (range[1] == null) {
+            return "₹" + range[0].longValue() + " & above";
+        }
+        if (range[0] == 0) {
+            return "Under ₹" + range[1].longValue();
+        }
+        return "₹" + range[0].longValue() + " - ₹" + range[1].longValue();
+    }
+
+    private static final class Bitmaps {
+        private final CatalogSnapshot source;
+        private final Map<Long, RoaringBitmap> categories;
+        private final Map<Long, String> categoryNames;
+        private final RoaringBitmap[] priceBands;
+        private final RoaringBitmap[] ratings;
+        private final RoaringBitmap inStock;
+
+        private Bitmaps(CatalogSnapshot snapshot) {
+            this.source = snapshot;
+            this.categories = new LinkedHashMap<>();
+            this.categoryNames = new HashMap<>();
+            this.priceBands = new RoaringBitmap[PRICE_BANDS.length];
+            this.ratings = new RoaringBitmap[RATING_THRESHOLDS.length];
+            List<ProductDTO> products = snapshot.all();
+            int size = products.size();
+
+            // Ordinals are visited in ascending order, so every list below is already sorted
+            Map<Long, IntStream.Builder> categoryOrdinals = new TreeMap<>();
+            int[][] ratingOrdinals = new int[RATING_THRESHOLDS.length][size];
+            int[] ratingCounts = new int[RATING_THRESHOLDS.length];
+            int[] stockOrdinals = new int[size];
+            int stockCount = 0;
+
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                ProductDTO product = products.get(ordinal);
+                if (product.getCategoryId() != null) {
+                    Long categoryId = product.getCategoryId();
+                    categoryOrdinals.computeIfAbsent(categoryId, id -> IntStream.builder()).add(ordinal);
+                    categoryNames.putIfAbsent(categoryId, product.getCategoryName());
+                }
+                double rating = rating(product);
+                for (int i = 0; i < RATING_THRESHOLDS.length; i++) {
+                    if (rating >= RATING_THRESHOLDS[i]) {
+                        ratingOrdinals[i][ratingCounts[i]++] = ordinal;
+                    }
+                }
+                if (inStock(product)) {
+                    stockOrdinals[stockCount++] = ordinal;
+                }
+            }
+
+            categoryOrdinals.forEach((id, ordinals) -> {
+                int[] values = ordinals.build().toArray();
+                categories.put(id, RoaringBitmap.of(values, values.length));
+            });
+            for (int i = 0; i < RATING_THRESHOLDS.length; i++) {
+                ratings[i] = RoaringBitmap.of(ratingOrdinals[i], ratingCounts[i]);
+            }
+            for (int band = 0; band < PRICE_BANDS.length; band++) {
+                Double upper = PRICE_BANDS[band][1] == null ? null : PRICE_BANDS[band][1] - 0.01;
+                priceBands[band] = RoaringBitmap.ofUnsorted(snapshot.ordinalsInPriceRange(PRICE_BANDS[band][0], upper));
+            }
+            this.inStock = RoaringBitmap.of(stockOrdinals, stockCount);
+        }
+
+        private Bitmaps(CatalogSnapshot snapshot, Bitmaps base, RoaringBitmap[] ratings, RoaringBitmap inStock) {
+            this.source = snapshot;
+            this.categories = base.categories;
+            this.categoryNames = base.categoryNames;
+            this.priceBands = base.priceBands;
+            this.ratings = ratings;
+            this.inStock = inStock;
+        }
+
+        // A snapshot of the same generation differs only in stock and ratings, and only for the
+        // products it replaced; everything else is shared
+        private Bitmaps patched(CatalogSnapshot snapshot) {
+            List<ProductDTO> before = source.all();
+            List<ProductDTO> after = snapshot.all();
+            RoaringBitmap[] patchedRatings = ratings.clone();
+            RoaringBitmap patchedStock = inStock;
+            for (int ordinal = 0; ordinal < after.size(); ordinal++) {
+                ProductDTO product = after.get(ordinal);
+                if (product == before.get(ordinal)) {
+                    continue;
+                }
+                double rating = rating(product);
+                for (int i = 0; i < RATING_THRESHOLDS.length; i++) {
+                    patchedRatings[i] = patchedRatings[i].with(ordinal, rating >= RATING_THRESHOLDS[i]);
+                }
+                patchedStock = patchedStock.with(ordinal, inStock(product));
+            }
+            return new Bitmaps(snapshot, this, patchedRatings, patchedStock);
+        }
+
+        private static double rating(ProductDTO product) {
+            return product.getAverageRating() != null ? product.getAverageRating() : 0.0;
+        }
+
+        private static boolean inStock(ProductDTO product) {
+            return product.getStock() != null && product.getStock() > 0;
+        }
+
+        private RoaringBitmap ratingAtLeast(int minRating) {
+            for (int i = 0; i < RATING_THRESHOLDS.length; i++) {
+                if (RATING_THRESHOLDS[i] == minRating) {
+                    return ratings[i];
+                }
+            }
+            // Not a precomputed threshold: build it once for this request
+            List<ProductDTO> products = source.all();
+            IntStream.Builder ordinals = IntStream.builder();
+            for (int ordinal = 0; ordinal < products.size(); ordinal++) {
+                if (rating(products.get(ordinal)) >= minRating) {
+                    ordinals.add(ordinal);
+                }
+            }
+            int[] values = ordinals.build().toArray();
+            return RoaringBitmap.of(values, values.length);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.sanjay.ecommerce.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanjay.ecommerce.model.IdempotencyRecord;
+import com.sanjay.ecommerce.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Runs a request at most once per (user, Idempotency-Key). Two tiers:
+//  - memory: recent keys with the in-flight or finished result, so a duplicate arriving while
+//    the first is running waits for it and a quick retry is answered without touching the database
+//  - idempotency_records: the key is claimed in the request's own transaction and the response
+//    stored with it, so replays survive restarts and duplicates sent to another instance block
+//    on the unique key until the first commits, then get its response
+// Failed requests are not remembered; retrying them runs them again.
+@Slf4j
+@Component
+public class IdempotencyStore {
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+
+    private final Map<String, Entry> recent = new ConcurrentHashMap<>();
+
+    @Value("${idempotency.memory-ttl-ms:600000}")
+    private long memoryTtlMs;
+
+    @Value("${idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    @Value("${idempotency.retention-hours:24}")
+    private long retentionHours;
+
+    public IdempotencyStore(IdempotencyRecordRepository recordRepository, ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    // The action must join the surrounding transaction, so the claimed key commits or rolls back with it.
+    // fingerprint describes the request; reusing a key for a different one is an error.
+    public <T> T execute(Long userId, String key, String fingerprint, Class<T> responseType, Supplier<T> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String scope = userId + ":" + key;
+        Entry entry = new Entry(fingerprint);
+        Entry existing = recent.putIfAbsent(scope, entry);
+        if (existing != null) {
+            existing.checkFingerprint(fingerprint);
+            return responseType.cast(existing.await(waitTimeoutMs));
+        }
+
+        try {
+            T response = transaction.execute(status -> runOnce(userId, key, fingerprint, responseType, action));
+            entry.complete(response, memoryTtlMs);
+            return response;
+        } catch (RuntimeException e) {
+            recent.remove(scope, entry);
+            RuntimeException failure = e;
+            try {
+                // Lost the race for the key to another instance: its request has committed by now
+                T replay = e instanceof DataIntegrityViolationException ? storedResponse(userId, key, fingerprint, responseType) : null;
+                if (replay != null) {
+                    entry.complete(replay, memoryTtlMs);
+                    recent.putIfAbsent(scope, entry);
+                    return replay;
+                }
+            } catch (RuntimeException replayFailure) {
+                failure = replayFailure;
+            }
+            // Waiting duplicates fail the same way; the next retry runs the request again
+            entry.fail(failure);
+            throw failure;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.memory-purge-interval-ms:60000}")
+    public void purgeMemory() {
+        long now = System.currentTimeMillis();
+        recent.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:3600000}")
+    public void purgeRecords() {
+        Integer removed = transaction.execute(status ->
+                recordRepository.deleteOlderThan(LocalDateTime.now().minusHours(retentionHours)));
+        if (removed != null && removed > 0) {
+            log.debug("Removed {} expired idempotency records", removed);
+        }
+    }
+
+    private <T> T runOnce(Long userId, String key, String fingerprint, Class<T> responseType, Supplier<T> action) {
+        IdempotencyRecord stored = recordRepository.findByUserIdAndIdempotencyKey(userId, key).orElse(null);
+        if (stored != null) {
+            return replay(stored, fingerprint, responseType);
+        }
+        // Claimed before the work starts: a concurrent duplicate elsewhere blocks here until this commits
+        IdempotencyRecord record = recordRepository.saveAndFlush(IdempotencyRecord.builder()
+                .userId(userId)
+                .idempotencyKey(key)
+                .requestFingerprint(fingerprint)
+                .build());
+        T response = action.get();
+        record.setResponseBody(write(response));
+        return response;
+    }
+
+    private <T> T storedResponse(Long userId, String key, String fingerprint, Class<T> responseType) {
+        return recordRepository.findByUserIdAndIdempotencyKey(userId, key)
+                .map(record -> replay(record, fingerprint, responseType))
+                .orElse(null);
+    }
+
+    private <T> T replay(IdempotencyRecord record, String fingerprint, Class<T> responseType) {
+        if (!record.getRequestFingerprint().equals(fingerprint)) {
+            throw new RuntimeException("Idempotency-Key was already used for a different request");
+        }
+        try {
+            return objectMapper.readValue(record.getResponseBody(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable stored response for idempotency record " + record.getId(), e);
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response cannot be stored for replay", e);
+        }
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        void checkFingerprint(String requested) {
+            if (!fingerprint.equals(requested)) {
+                throw new RuntimeException("Idempotency-Key was already used for a different request");
+            }
+        }
+
+        void complete(Object response, long ttlMs) {
+            expiresAt = System.currentTimeMillis() + ttlMs;
+            result.complete(response);
+        }
+
+        void fail(RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+
+        // Waits for the request that got here first and answers as it did
+        Object await(long timeoutMs) {
+            try {
+                return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(e.getCause());
+            } catch (TimeoutException e) {
+                throw new RuntimeException("A request with this Idempotency-Key is still being processed");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for the original request");
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.sanjay.ecommerce.service;
+
+import com.sanjay.ecommerce.repository.StockJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Stock changes under row locks: the rows an order touches are locked, checked and written in
+// ascending id order, so concurrent checkouts cannot both pass the check on the same units and
+// oversell, and the cost is two statements whatever the size of the order.
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class InventoryService {
+    private final StockJdbcRepository stockJdbcRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Takes the given quantity of every product or none of them: a shortfall throws and the
+    // caller's transaction rolls back what was already taken
+    public void reserveStock(Map<Long, Integer> quantities) {
+        TreeMap<Long, Integer> ordered = new TreeMap<>(quantities);
+        List<StockJdbcRepository.Level> levels = stockJdbcRepository.lockStockLevels(ordered);
+        if (levels.size() < ordered.size()) {
+            throw new RuntimeException("Product not found");
+        }
+        for (StockJdbcRepository.Level level : levels) {
+            if (level.getStock() < ordered.get(level.getProductId())) {
+                throw new RuntimeException("Insufficient stock for product: " + level.getName());
+            }
+        }
+        stockJdbcRepository.adjustStock(ordered);
+        ordered.keySet().forEach(productId -> eventPublisher.publishEvent(new CatalogChangedEvent(productId, false)));
+    }
+
+    // Puts back stock taken by an order that did not go through; products deleted since are skipped
+    public void restoreStock(Map<Long, Integer> quantities) {
+        TreeMap<Long, Integer> returned = new TreeMap<>();
+        quantities.forEach((productId, quantity) -> returned.put(productId, -quantity));
+        int[] updated = stockJdbcRepository.adjustStock(returned);
+        int i = 0;
+        for (Long productId : returned.keySet()) {
+            if (updated[i++] != 0) {
+                eventPublisher.publishEvent(new CatalogChangedEvent(productId, false));
+            }
+        }
+    }
+}
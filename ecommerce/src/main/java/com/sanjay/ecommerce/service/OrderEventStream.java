@@ -0,0 +1,68 @@
+package com.sanjay.ecommerce.service;
+
+import com.sanjay.ecommerce.model.Order;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+// Server-Sent Event streams of order status changes, one set of open emitters per order. A
+// stream ends when its order can no longer change or after orders.events.timeout-ms.
+@Slf4j
+@Component
+public class OrderEventStream {
+    private final Map<Long, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    @Value("${orders.events.timeout-ms:300000}")
+    private long timeoutMs;
+
+    // Registered before the caller reads the current status, so no change can slip in between
+    public SseEmitter subscribe(Long orderId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        subscribers.computeIfAbsent(orderId, id -> new CopyOnWriteArraySet<>()).add(emitter);
+        Runnable remove = () -> unsubscribe(orderId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+        return emitter;
+    }
+
+    public void send(SseEmitter emitter, OrderStatusEvent event) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(event));
+            if (isFinal(event.getStatus())) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away or the stream already ended
+            log.debug("Dropping order event stream for order {}", event.getOrderId());
+            unsubscribe(event.getOrderId(), emitter);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStatusChanged(OrderStatusEvent event) {
+        Set<SseEmitter> emitters = subscribers.get(event.getOrderId());
+        if (emitters != null) {
+            emitters.forEach(emitter -> send(emitter, event));
+        }
+    }
+
+    private void unsubscribe(Long orderId, SseEmitter emitter) {
+        subscribers.computeIfPresent(orderId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private static boolean isFinal(Order.OrderStatus status) {
+        return status == Order.OrderStatus.DELIVERED || status == Order.OrderStatus.CANCELLED;
+    }
+}
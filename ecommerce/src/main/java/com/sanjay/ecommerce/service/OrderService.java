@@ -1,30 +1,52 @@
 package com.sanjay.ecommerce.service;
 
+import com.sanjay.ecommerce.dto.AddressDTO;
+import com.sanjay.ecommerce.dto.CursorPage;
+import com.sanjay.ecommerce.dto.OrderDTO;
+import com.sanjay.ecommerce.dto.OrderItemDTO;
+import com.sanjay.ecommerce.dto.PaymentDTO;
 import com.sanjay.ecommerce.model.*;
 import com.sanjay.ecommerce.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.math.BigDecimal;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class OrderService {
+    private static final int MAX_HISTORY_PAGE_SIZE = 50;
+
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final CartService cartService;
-    private final ProductRepository productRepository;
+    private final InventoryService inventoryService;
+    private final StockReservations stockReservations;
     private final AddressRepository addressRepository;
     private final PaymentRepository paymentRepository;
     private final UserRepository userRepository;
+    private final PaymentPipeline paymentPipeline;
+    private final OrderEventStream orderEventStream;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SnowflakeIdGenerator idGenerator;
+    private final AnalyticsCounters analyticsCounters;
+    private final SalesRollups salesRollups;
 
-    public Order placeOrder(Long userId, Long addressId, Payment.PaymentMethod paymentMethod) {
-        Cart cart = cartService.getUserCart(userId);
+    // First stage of checkout: stock, order and cart change in one transaction and the order is
+    // left PENDING. Payment is authorized by PaymentPipeline after commit; follow it on the
+    // order's event stream.
+    public OrderDTO placeOrder(Long userId, Long addressId, Payment.PaymentMethod paymentMethod) {
+        Cart cart = cartService.getCheckoutCart(userId);
 
         if (cart.getItems().isEmpty()) {
             throw new RuntimeException("Cart is empty");
@@ -36,24 +58,26 @@ public class OrderService {
         Address address = addressRepository.findById(addressId)
                 .orElseThrow(() -> new RuntimeException("Address not found"));
 
-        // Check stock availability
+        // Reserve stock up front; a shortfall on any product fails the whole order. The in-memory
+        // hold turns hot-product contention away before it reaches the database row locks.
+        Map<Long, Integer> quantities = new HashMap<>();
         for (CartItem cartItem : cart.getItems()) {
-            Product product = cartItem.getProduct();
-            if (product.getStock() < cartItem.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for product: " + product.getName());
-            }
+            quantities.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
         }
+        stockReservations.holdForOrder(userId, quantities);
+        inventoryService.reserveStock(quantities);
 
         // Create order
         Order order = Order.builder()
+                .orderNumber(idGenerator.nextCode())
                 .user(user)
                 .deliveryAddress(address)
                 .totalAmount(cart.getTotalPrice())
-                .status(Order.OrderStatus.PROCESSING)
+                .status(Order.OrderStatus.PENDING)
                 .build();
         order = orderRepository.save(order);
 
-        // Create order items and update stock
+        // Create order items
         Set<OrderItem> orderItems = new HashSet<>();
         for (CartItem cartItem : cart.getItems()) {
             Product product = cartItem.getProduct();
@@ -66,40 +90,82 @@ public class OrderService {
                     .build();
             orderItems.add(orderItem);
             orderItemRepository.save(orderItem);
-
-            // Reduce stock
-            product.setStock(product.getStock() - cartItem.getQuantity());
-            productRepository.save(product);
         }
         order.setItems(orderItems);
+        analyticsCounters.orderPlaced(order);
+        salesRollups.orderPlaced(order);
 
-        // Simulate payment
-        Payment payment = processPayment(order, paymentMethod);
-        order.setPayment(payment);
+        Payment payment = Payment.builder()
+                .order(order)
+                .amount(order.getTotalAmount())
+                .paymentMethod(paymentMethod)
+                .status(Payment.PaymentStatus.PENDING)
+                .build();
+        order.setPayment(paymentRepository.save(payment));
 
         // Clear cart
-        cartService.clearCart(userId);
+        cartService.clearCheckoutCart(userId, cart);
 
-        return orderRepository.save(order);
+        order = orderRepository.save(order);
+        paymentPipeline.submitAfterCommit(new PaymentGateway.Request(order.getId(), order.getTotalAmount(), paymentMethod));
+
+        return toDto(order);
     }
 
-    private Payment processPayment(Order order, Payment.PaymentMethod paymentMethod) {
-        // Simulate payment processing (90% success rate)
-        boolean isSuccess = Math.random() < 0.9;
+    // Opens the order's status stream, starting with its current status
+    @Transactional(readOnly = true)
+    public SseEmitter subscribeToOrder(Long userId, Long orderId) {
+        Order order = getOrderById(orderId);
+        if (!order.getUser().getId().equals(userId)) {
+            throw new RuntimeException("Order not found");
+        }
+        SseEmitter emitter = orderEventStream.subscribe(orderId);
+        // Re-read after subscribing: a change committed meanwhile is sent twice rather than never
+        Order.OrderStatus status = orderRepository.findStatusById(orderId);
+        orderEventStream.send(emitter, new OrderStatusEvent(orderId, status));
+        return emitter;
+    }
 
-        Payment payment = Payment.builder()
-                .order(order)
-                .amount(order.getTotalAmount())
-                .paymentMethod(paymentMethod)
-                .status(isSuccess ? Payment.PaymentStatus.SUCCESS : Payment.PaymentStatus.FAILED)
-                .transactionId(UUID.randomUUID().toString())
-                .build();
+    // Newest first, paged by (orderDate, id): one query for the page's ids and one for the orders
+    // with their items, products and payment, however many orders the page holds
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDTO> getUserOrderPage(Long userId, String cursor, int size) {
+        OrderCursor after = cursor != null && !cursor.isBlank() ? OrderCursor.decode(cursor) : null;
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+
+        // Fetch one extra id to learn whether another page exists without a COUNT query
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<Long> ids = after == null
+                ? orderRepository.findHistoryIds(userId, limit)
+                : orderRepository.findHistoryIdsAfter(userId, after.getOrderDate(), after.getId(), limit);
+
+        boolean hasMore = ids.size() > pageSize;
+        if (hasMore) {
+            ids = ids.subList(0, pageSize);
+        }
+        List<Order> orders = findWithDetails(ids);
+        if (orders.isEmpty() && hasMore) {
+            // Every order on the page was deleted in between; nothing to take a cursor from, so read it again
+            return getUserOrderPage(userId, cursor, size);
+        }
+        String nextCursor = hasMore
+                ? OrderCursor.after(orders.get(orders.size() - 1)).encode()
+                : null;
 
-        return paymentRepository.save(payment);
+        return CursorPage.<OrderDTO>builder()
+                .items(orders.stream().map(OrderService::toDto).toList())
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
     }
 
-    public List<Order> getUserOrders(Long userId) {
-        return orderRepository.findByUserIdOrderByOrderDateDesc(userId);
+    @Transactional(readOnly = true)
+    public OrderDTO getUserOrder(Long userId, Long orderId) {
+        return findWithDetails(List.of(orderId)).stream()
+                .filter(order -> order.getUser().getId().equals(userId))
+                .findFirst()
+                .map(OrderService::toDto)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
     }
 
     public Order getOrderById(Long orderId) {
@@ -113,7 +179,80 @@ public class OrderService {
 
     public Order updateOrderStatus(Long orderId, Order.OrderStatus status) {
         Order order = getOrderById(orderId);
+        // PENDING belongs to the payment pipeline, which settles it on its own
+        if (order.getStatus() == Order.OrderStatus.PENDING || status == Order.OrderStatus.PENDING) {
+            throw new RuntimeException("Payment for this order is still being processed");
+        }
+        if (status == Order.OrderStatus.CANCELLED && order.getStatus() != Order.OrderStatus.CANCELLED) {
+            analyticsCounters.orderCancelled(order);
+            salesRollups.orderCancelled(order);
+        } else if (status != Order.OrderStatus.CANCELLED && order.getStatus() == Order.OrderStatus.CANCELLED) {
+            analyticsCounters.orderReinstated(order);
+            salesRollups.orderReinstated(order);
+        }
         order.setStatus(status);
-        return orderRepository.save(order);
+        order = orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderStatusEvent(orderId, status));
+        return order;
+    }
+
+    // The orders in the given id order; the IN query returns them in any order
+    private List<Order> findWithDetails(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Order> byId = new HashMap<>();
+        for (Order order : orderRepository.findWithDetailsByIdIn(ids)) {
+            byId.put(order.getId(), order);
+        }
+        // Orders deleted since their ids were read are left out
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    private static OrderDTO toDto(Order order) {
+        User user = order.getUser();
+        Address address = order.getDeliveryAddress();
+        Payment payment = order.getPayment();
+        List<OrderItemDTO> items = order.getItems().stream()
+                .sorted(Comparator.comparing(OrderItem::getId))
+                .map(item -> OrderItemDTO.builder()
+                        .id(item.getId())
+                        .productId(item.getProduct().getId())
+                        .productName(item.getProduct().getName())
+                        .productImageUrl(item.getProduct().getImageUrl())
+                        .quantity(item.getQuantity())
+                        .price(item.getPrice())
+                        .build())
+                .toList();
+        return OrderDTO.builder()
+                .id(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .userId(user.getId())
+                .userName(user.getFullName())
+                .userEmail(user.getEmail())
+                .totalAmount(order.getTotalAmount())
+                .status(order.getStatus().name())
+                .orderDate(order.getOrderDate())
+                .deliveryAddress(address != null ? AddressDTO.builder()
+                        .id(address.getId())
+                        .fullName(address.getFullName())
+                        .phone(address.getPhone())
+                        .addressLine1(address.getAddressLine1())
+                        .addressLine2(address.getAddressLine2())
+                        .city(address.getCity())
+                        .state(address.getState())
+                        .zipCode(address.getZipCode())
+                        .country(address.getCountry())
+                        .build() : null)
+                .items(items)
+                .payment(payment != null ? PaymentDTO.builder()
+                        .id(payment.getId())
+                        .amount(payment.getAmount())
+                        .paymentMethod(payment.getPaymentMethod().name())
+                        .status(payment.getStatus().name())
+                        .transactionId(payment.getTransactionId())
+                        .paymentDate(payment.getPaymentDate())
+                        .build() : null)
+                .build();
     }
-}
\ No newline at end of file
+}
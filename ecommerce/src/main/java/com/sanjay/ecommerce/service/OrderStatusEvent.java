@@ -0,0 +1,13 @@
+package com.sanjay.ecommerce.service;
+
+import com.sanjay.ecommerce.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// An order moved to a new status; pushed to the order's event stream once the change commits
+@Getter
+@AllArgsConstructor
+public class OrderStatusEvent {
+    private final Long orderId;
+    private final Order.OrderStatus status;
+}
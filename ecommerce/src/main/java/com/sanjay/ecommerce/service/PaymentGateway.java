@@ -0,0 +1,30 @@
+package com.sanjay.ecommerce.service;
+
+import com.sanjay.ecommerce.model.Payment;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.math.BigDecimal;
+
+// Authorizes an order's payment with the provider. Called from the payment pipeline's virtual
+// threads outside any transaction, so an implementation may block on the network for as long as
+// the provider takes. Select one with payment.gateway.
+public interface PaymentGateway {
+
+    Result authorize(Request request);
+
+    @Getter
+    @AllArgsConstructor
+    class Request {
+        // A retried attempt carries the same order id; providers should treat it as the idempotency key
+        private final Long orderId;
+        private final BigDecimal amount;
+        private final Payment.PaymentMethod paymentMethod;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    class Result {
+        private final boolean approved;
+        private final String transactionId;
+    }
+}
@@ -0,0 +1,159 @@
+package com.sanjay.ecommerce.service;
+
+import com.sanjay.ecommerce.model.Order;
+import com.sanjay.ecommerce.model.OrderItem;
+import com.sanjay.ecommerce.model.Payment;
+import com.sanjay.ecommerce.repository.OrderRepository;
+import com.sanjay.ecommerce.repository.PaymentRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Second stage of checkout. Once a PENDING order has committed, its payment is authorized on a
+// virtual thread, so a slow provider holds neither a request thread nor a database connection.
+// The outcome is written in a short transaction of its own: an approved order moves on to
+// PROCESSING; a declined one is CANCELLED and its stock goes back on sale. A worker first claims
+// the order, so across instances one attempt runs at a time; a PENDING order whose claim is older
+// than payment.retry-after-ms (a crash, or an outcome that could not be written) is resubmitted.
+@Slf4j
+@Component
+public class PaymentPipeline {
+    private final PaymentGateway paymentGateway;
+    private final OrderRepository orderRepository;
+    private final PaymentRepository paymentRepository;
+    private final InventoryService inventoryService;
+    private final StockReservations stockReservations;
+    private final AnalyticsCounters analyticsCounters;
+    private final SalesRollups salesRollups;
+    private final BestSellers bestSellers;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
+
+    // Must exceed the longest authorization, or a second worker takes an order still in flight
+    @Value("${payment.retry-after-ms:300000}")
+    private long retryAfterMs;
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("payment-", 0).factory());
+
+    public PaymentPipeline(PaymentGateway paymentGateway, OrderRepository orderRepository,
+                           PaymentRepository paymentRepository, InventoryService inventoryService,
+                           StockReservations stockReservations, AnalyticsCounters analyticsCounters,
+                           SalesRollups salesRollups, BestSellers bestSellers, ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager) {
+        this.paymentGateway = paymentGateway;
+        this.orderRepository = orderRepository;
+        this.paymentRepository = paymentRepository;
+        this.inventoryService = inventoryService;
+        this.stockReservations = stockReservations;
+        this.analyticsCounters = analyticsCounters;
+        this.salesRollups = salesRollups;
+        this.bestSellers = bestSellers;
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    // Queues the payment once the order's transaction commits; nothing is queued on rollback
+    public void submitAfterCommit(PaymentGateway.Request request) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(request);
+            }
+        });
+    }
+
+    // Orders left PENDING by a shutdown or a failed write are picked up again once their claim
+    // lapses; submit only queues them, the worker's claim decides who runs
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${payment.retry-interval-ms:60000}", initialDelayString = "${payment.retry-interval-ms:60000}")
+    public void resubmitStale() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(retryAfterMs * 1_000_000);
+        List<PaymentGateway.Request> stale = transaction.execute(status ->
+                orderRepository.findUnclaimed(Order.OrderStatus.PENDING, cutoff).stream()
+                        .map(order -> new PaymentGateway.Request(order.getId(), order.getTotalAmount(),
+                                order.getPayment().getPaymentMethod()))
+                        .toList());
+        if (!stale.isEmpty()) {
+            log.info("Resubmitting payment for {} pending orders", stale.size());
+            stale.forEach(this::submit);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void submit(PaymentGateway.Request request) {
+        executor.execute(() -> process(request));
+    }
+
+    private void process(PaymentGateway.Request request) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transaction.execute(status -> orderRepository.claimPayment(request.getOrderId(),
+                Order.OrderStatus.PENDING, now, now.minusNanos(retryAfterMs * 1_000_000)));
+        if (claimed == null || claimed == 0) {
+            // Settled already, or another worker is authorizing it
+            return;
+        }
+        PaymentGateway.Result result;
+        try {
+            result = paymentGateway.authorize(request);
+        } catch (RuntimeException e) {
+            log.warn("Payment authorization failed for order {}: {}", request.getOrderId(), e.getMessage());
+            result = new PaymentGateway.Result(false, null);
+        }
+        PaymentGateway.Result outcome = result;
+        try {
+            transaction.executeWithoutResult(status -> complete(request.getOrderId(), outcome));
+        } catch (RuntimeException e) {
+            // Left PENDING; the sweep retries it once the claim lapses
+            log.error("Could not record payment for order {}", request.getOrderId(), e);
+        }
+    }
+
+    private void complete(Long orderId, PaymentGateway.Result result) {
+        Order.OrderStatus next = result.isApproved() ? Order.OrderStatus.PROCESSING : Order.OrderStatus.CANCELLED;
+        // Only a still-PENDING order moves, so a duplicate run or an earlier admin change wins
+        if (orderRepository.updateStatusIfCurrent(orderId, Order.OrderStatus.PENDING, next) == 0) {
+            return;
+        }
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+
+        Payment payment = order.getPayment();
+        payment.setStatus(result.isApproved() ? Payment.PaymentStatus.SUCCESS : Payment.PaymentStatus.FAILED);
+        payment.setTransactionId(result.getTransactionId());
+        paymentRepository.save(payment);
+
+        if (result.isApproved()) {
+            bestSellers.orderApproved(order);
+        } else {
+            Map<Long, Integer> quantities = new HashMap<>();
+            for (OrderItem item : order.getItems()) {
+                quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+            }
+            inventoryService.restoreStock(quantities);
+            stockReservations.restock(quantities);
+            analyticsCounters.orderCancelled(order);
+            salesRollups.orderCancelled(order);
+        }
+        eventPublisher.publishEvent(new OrderStatusEvent(orderId, next));
+    }
+}
@@ -0,0 +1,297 @@
+package com.sanjay.ecommerce.service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+// Immutable posting list: ascending product ids with term frequencies and field lengths, split
+// into blocks of varint-encoded (id delta, frequency, length) triples. Each block keeps its last
+// id, highest frequency and shortest length, so cursors skip whole blocks and a block's best
+// possible score is known without decoding it. Updates re-encode only the block they touch.
+final class PostingList {
+    static final PostingList EMPTY = new PostingList(new long[0], new byte[0][], new int[0], new int[0], new int[0]);
+    private static final int BLOCK_SIZE = 128;
+
+    private final long[] lastIds;
+    private final byte[][] blocks;
+    private final int[] counts;
+    private final int[] maxFreqs;
+    private final int[] minLengths;
+    private final int size;
+    private final int maxFreq;
+    private final int minLength;
+
+    private PostingList(long[] lastIds, byte[][] blocks, int[] counts, int[] maxFreqs, int[] minLengths) {
+        this.lastIds = lastIds;
+        this.blocks = blocks;
+        this.counts = counts;
+        this.maxFreqs = maxFreqs;
+        this.minLengths = minLengths;
+        int total = 0;
+        int highest = 0;
+        int shortest = blocks.length == 0 ? 0 : Integer.MAX_VALUE;
+        for (int b = 0; b < blocks.length; b++) {
+            total += counts[b];
+            highest = Math.max(highest, maxFreqs[b]);
+            shortest = Math.min(shortest, minLengths[b]);
+        }
+        this.size = total;
+        this.maxFreq = highest;
+        this.minLength = shortest;
+    }
+
+    static PostingList of(long[] ids, int[] freqs, int[] lengths, int count) {
+        int blockCount = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        Blocks built = new Blocks(blockCount);
+        for (int b = 0; b < blockCount; b++) {
+            built.encode(b, ids, freqs, lengths, b * BLOCK_SIZE, Math.min(count, (b + 1) * BLOCK_SIZE));
+        }
+        return built.toList();
+    }
+
+    int size() {
+        return size;
+    }
+
+    int maxFreq() {
+        return maxFreq;
+    }
+
+    int minLength() {
+        return minLength;
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    // Copy with the posting for id set (inserted in order, replaced, or removed when freq is 0);
+    // only the block that holds id is decoded and re-encoded, split when it grows past twice the
+    // block size and dropped when it empties
+    PostingList with(long id, int freq, int length) {
+        if (blocks.length == 0) {
+            return freq > 0 ? of(new long[]{id}, new int[]{freq}, new int[]{length}, 1) : this;
+        }
+        int block = Arrays.binarySearch(lastIds, id);
+        if (block < 0) {
+            block = Math.min(-block - 1, blocks.length - 1);
+        }
+
+        int capacity = counts[block] + 1;
+        long[] ids = new long[capacity];
+        int[] freqs = new int[capacity];
+        int[] lengths = new int[capacity];
+        int count = 0;
+        boolean placed = false;
+        boolean found = false;
+        Cursor cursor = new Cursor();
+        cursor.load(block);
+        while (cursor.remaining > 0) {
+            cursor.read();
+            if (!placed && cursor.id >= id) {
+                placed = true;
+                found = cursor.id == id;
+                if (freq > 0) {
+                    ids[count] = id;
+                    freqs[count] = freq;
+                    lengths[count++] = length;
+                }
+                if (found) {
+                    continue;
+                }
+            }
+            ids[count] = cursor.id;
+            freqs[count] = cursor.freq;
+            lengths[count++] = cursor.length;
+        }
+        if (!placed && freq > 0) {
+            ids[count] = id;
+            freqs[count] = freq;
+            lengths[count++] = length;
+        }
+        if (freq == 0 && !found) {
+            return this;
+        }
+
+        int pieces = count == 0 ? 0 : count > 2 * BLOCK_SIZE ? 2 : 1;
+        Blocks rebuilt = new Blocks(blocks.length - 1 + pieces);
+        rebuilt.copy(this, 0, 0, block);
+        if (pieces == 1) {
+            rebuilt.encode(block, ids, freqs, lengths, 0, count);
+        } else if (pieces == 2) {
+            rebuilt.encode(block, ids, freqs, lengths, 0, count / 2);
+            rebuilt.encode(block + 1, ids, freqs, lengths, count / 2, count);
+        }
+        rebuilt.copy(this, block + 1, block + pieces, blocks.length - block - 1);
+        return rebuilt.toList();
+    }
+
+    // Forward-only position in the list; ids read as Long.MAX_VALUE once it is exhausted
+    final class Cursor {
+        private int block = -1;
+        private int position;
+        private int remaining;
+        private long id;
+        private int freq;
+        private int length;
+
+        boolean next() {
+            while (remaining == 0) {
+                if (block + 1 >= blocks.length) {
+                    return finish();
+                }
+                load(block + 1);
+            }
+            read();
+            return true;
+        }
+
+        // Moves to the first posting with an id of at least target, skipping blocks that end before it
+        boolean advance(long target) {
+            if (id == Long.MAX_VALUE) {
+                return false;
+            }
+            if (block >= 0 && id >= target) {
+                return true;
+            }
+            int from = Math.max(block, 0);
+            if (lastIds[from] < target) {
+                int found = Arrays.binarySearch(lastIds, from + 1, lastIds.length, target);
+                found = found < 0 ? -found - 1 : found;
+                if (found >= blocks.length) {
+                    return finish();
+                }
+                load(found);
+            } else if (block < 0) {
+                load(0);
+            }
+            while (next()) {
+                if (id >= target) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long id() {
+            return id;
+        }
+
+        int freq() {
+            return freq;
+        }
+
+        int length() {
+            return length;
+        }
+
+        int blockMaxFreq() {
+            return maxFreqs[block];
+        }
+
+        int blockMinLength() {
+            return minLengths[block];
+        }
+
+        long blockLastId() {
+            return lastIds[block];
+        }
+
+        private void load(int target) {
+            block = target;
+            position = 0;
+            remaining = counts[target];
+            id = 0;
+        }
+
+        private void read() {
+            byte[] data = blocks[block];
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            id += value;
+            freq = readVarInt(data);
+            length = readVarInt(data);
+            remaining--;
+        }
+
+        private int readVarInt(byte[] data) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        private boolean finish() {
+            id = Long.MAX_VALUE;
+            remaining = 0;
+            return false;
+        }
+    }
+
+    // Block arrays of a list being built
+    private static final class Blocks {
+        private final long[] lastIds;
+        private final byte[][] blocks;
+        private final int[] counts;
+        private final int[] maxFreqs;
+        private final int[] minLengths;
+
+        private Blocks(int blockCount) {
+            lastIds = new long[blockCount];
+            blocks = new byte[blockCount][];
+            counts = new int[blockCount];
+            maxFreqs = new int[blockCount];
+            minLengths = new int[blockCount];
+        }
+
+        private void encode(int block, long[] ids, int[] freqs, int[] lengths, int from, int to) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((to - from) * 3);
+            long previous = 0;
+            int highest = 0;
+            int shortest = Integer.MAX_VALUE;
+            for (int i = from; i < to; i++) {
+                writeVarLong(out, ids[i] - previous);
+                writeVarLong(out, freqs[i]);
+                writeVarLong(out, lengths[i]);
+                previous = ids[i];
+                highest = Math.max(highest, freqs[i]);
+                shortest = Math.min(shortest, lengths[i]);
+            }
+            lastIds[block] = previous;
+            blocks[block] = out.toByteArray();
+            counts[block] = to - from;
+            maxFreqs[block] = highest;
+            minLengths[block] = shortest;
+        }
+
+        private void copy(PostingList source, int from, int to, int count) {
+            System.arraycopy(source.lastIds, from, lastIds, to, count);
+            System.arraycopy(source.blocks, from, blocks, to, count);
+            System.arraycopy(source.counts, from, counts, to, count);
+            System.arraycopy(source.maxFreqs, from, maxFreqs, to, count);
+            System.arraycopy(source.minLengths, from, minLengths, to, count);
+        }
+
+        private PostingList toList() {
+            return blocks.length == 0 ? EMPTY : new PostingList(lastIds, blocks, counts, maxFreqs, minLengths);
+        }
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,351 @@
+package com.sanjay.ecommerce.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanjay.ecommerce.dto.ImportErrorDTO;
+import com.sanjay.ecommerce.dto.ImportResultDTO;
+import com.sanjay.ecommerce.model.Category;
+import com.sanjay.ecommerce.repository.CategoryRepository;
+import com.sanjay.ecommerce.repository.ProductBulkRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+// Bulk catalog import/export. Input is parsed one record at a time and written in JDBC
+// batches, each in its own transaction, so memory stays flat and a bad batch only costs
+// that batch. Rows with an id update that product, rows without one are inserted.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductBulkService {
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final List<String> EXPORT_COLUMNS = List.of(
+            "id", "name", "description", "price", "stock", "imageUrl", "category", "averageRating", "reviewCount", "createdAt");
+
+    private final ProductBulkRepository productBulkRepository;
+    private final CategoryRepository categoryRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    @Value("${products.import.batch-size:1000}")
+    private int batchSize;
+
+    public ImportResultDTO importProducts(InputStream input, String format) throws IOException {
+        long started = System.currentTimeMillis();
+        ImportRun run = new ImportRun();
+        Reader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+
+        if ("jsonl".equals(format)) {
+            readJsonLines(reader, run);
+        } else if ("csv".equals(format)) {
+            readCsv(reader, run);
+        } else {
+            throw new RuntimeException("Unsupported import format: " + format);
+        }
+        run.flush();
+        // Batch failures surface at flush time; report in file order
+        run.errors.sort(Comparator.comparingLong(ImportErrorDTO::getLine));
+
+        if (run.inserted + run.updated > 0) {
+            // One catalog-wide change instead of an event per row
+            eventPublisher.publishEvent(new CatalogChangedEvent(null, true));
+        }
+        log.info("Imported {} rows: {} inserted, {} updated, {} failed", run.rows, run.inserted, run.updated, run.failed);
+        return ImportResultDTO.builder()
+                .rows(run.rows)
+                .inserted(run.inserted)
+                .updated(run.updated)
+                .failed(run.failed)
+                .durationMs(System.currentTimeMillis() - started)
+                .errors(run.errors)
+                .build();
+    }
+
+    // Rows go out as they are read from a server-side cursor; nothing is collected first
+    @Transactional(readOnly = true)
+    public void exportProducts(OutputStream output, String format) throws IOException {
+        boolean jsonl = "jsonl".equals(format);
+        if (!jsonl && !"csv".equals(format)) {
+            throw new RuntimeException("Unsupported export format: " + format);
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        if (!jsonl) {
+            writer.write(String.join(",", EXPORT_COLUMNS));
+            writer.write('\n');
+        }
+        productBulkRepository.streamAll(rs -> {
+            try {
+                Object[] values = exportValues(rs);
+                if (jsonl) {
+                    Map<String, Object> record = new LinkedHashMap<>();
+                    for (int i = 0; i < values.length; i++) {
+                        record.put(EXPORT_COLUMNS.get(i), values[i]);
+                    }
+                    writer.write(objectMapper.writeValueAsString(record));
+                } else {
+                    for (int i = 0; i < values.length; i++) {
+                        if (i > 0) {
+                            writer.write(',');
+                        }
+                        writer.write(csvField(values[i]));
+                    }
+                }
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private void readCsv(Reader reader, ImportRun run) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("name") || !columns.containsKey("price")) {
+            throw new RuntimeException("CSV header must include name and price columns");
+        }
+
+        List<String> fields;
+        while (true) {
+            try {
+                fields = csv.next();
+            } catch (IOException e) {
+                run.rows++;
+                run.fail(csv.recordLine(), e.getMessage());
+                break;
+            }
+            if (fields == null) {
+                break;
+            }
+            List<String> record = fields;
+            run.accept(csv.recordLine(), name -> {
+                Integer index = columns.get(name.toLowerCase(Locale.ROOT));
+                return index != null && index < record.size() ? record.get(index) : null;
+            });
+        }
+    }
+
+    private void readJsonLines(Reader reader, ImportRun run) throws IOException {
+        BufferedReader lines = (BufferedReader) reader;
+        String line;
+        long lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (IOException e) {
+                run.rows++;
+                run.fail(lineNumber, "Malformed JSON");
+                continue;
+            }
+            run.accept(lineNumber, name -> {
+                JsonNode value = node.get(name);
+                return value == null || value.isNull() ? null : value.asText();
+            });
+        }
+    }
+
+    private static Object[] exportValues(ResultSet rs) throws SQLException {
+        return new Object[]{
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("description"),
+                rs.getBigDecimal("price"),
+                rs.getInt("stock"),
+                rs.getString("image_url"),
+                rs.getString("category"),
+                rs.getObject("average_rating"),
+                rs.getObject("review_count"),
+                rs.getTimestamp("created_at") != null ? rs.getTimestamp("created_at").toLocalDateTime().toString() : null
+        };
+    }
+
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    private interface Fields {
+        String get(String name);
+    }
+
+    // State of one import: pending batches, counters, and the category lookup cache
+    private final class ImportRun {
+        private final List<ProductBulkRepository.Row> inserts = new ArrayList<>();
+        private final List<ProductBulkRepository.Row> updates = new ArrayList<>();
+        private final Map<String, Optional<Long>> categoryIds = new HashMap<>();
+        private final List<ImportErrorDTO> errors = new ArrayList<>();
+        private long rows;
+        private long inserted;
+        private long updated;
+        private long failed;
+
+        void accept(long line, Fields fields) {
+            rows++;
+            try {
+                ProductBulkRepository.Row row = parse(line, fields);
+                List<ProductBulkRepository.Row> pending = row.getId() != null ? updates : inserts;
+                pending.add(row);
+                if (pending.size() >= batchSize) {
+                    flush(pending, row.getId() != null);
+                }
+            } catch (RuntimeException e) {
+                fail(line, e.getMessage());
+            }
+        }
+
+        void flush() {
+            flush(inserts, false);
+            flush(updates, true);
+        }
+
+        void fail(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(ImportErrorDTO.builder().line(line).message(message).build());
+            }
+        }
+
+        private void flush(List<ProductBulkRepository.Row> batch, boolean update) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            try {
+                int[] counts = transaction.execute(status -> update
+                        ? productBulkRepository.updateBatch(batch)
+                        : productBulkRepository.insertBatch(batch));
+                record(batch, counts, update);
+            } catch (RuntimeException e) {
+                // A failed statement aborts the whole batch; replay it row by row to find the culprits
+                for (ProductBulkRepository.Row row : batch) {
+                    try {
+                        int[] counts = transaction.execute(status -> update
+                                ? productBulkRepository.updateBatch(List.of(row))
+                                : productBulkRepository.insertBatch(List.of(row)));
+                        record(List.of(row), counts, update);
+                    } catch (RuntimeException rowError) {
+                        fail(row.getLine(), rootMessage(rowError));
+                    }
+                }
+            }
+            batch.clear();
+        }
+
+        private void record(List<ProductBulkRepository.Row> batch, int[] counts, boolean update) {
+            for (int i = 0; i < batch.size(); i++) {
+                // Rewritten batched inserts report SUCCESS_NO_INFO (-2) rather than a row count
+                if (counts[i] == 0) {
+                    fail(batch.get(i).getLine(), "Product " + batch.get(i).getId() + " not found");
+                } else if (update) {
+                    updated++;
+                } else {
+                    inserted++;
+                }
+            }
+        }
+
+        private ProductBulkRepository.Row parse(long line, Fields fields) {
+            String name = trimToNull(fields.get("name"));
+            if (name == null) {
+                throw new RuntimeException("Name is required");
+            }
+            BigDecimal price = parseDecimal(fields.get("price"));
+            if (price == null || price.signum() < 0) {
+                throw new RuntimeException("Price must be a non-negative number");
+            }
+            String stockText = trimToNull(fields.get("stock"));
+            int stock = stockText == null ? 0 : parseInt(stockText, "Stock");
+            if (stock < 0) {
+                throw new RuntimeException("Stock must not be negative");
+            }
+            String idText = trimToNull(fields.get("id"));
+            Long id = idText == null ? null : parseLong(idText, "Id");
+
+            String categoryName = trimToNull(fields.get("category"));
+            Long categoryId = null;
+            if (categoryName != null) {
+                categoryId = categoryIds.computeIfAbsent(categoryName,
+                                key -> categoryRepository.findByName(key).map(Category::getId))
+                        .orElseThrow(() -> new RuntimeException("Unknown category: " + categoryName));
+            }
+
+            String imageUrl = trimToNull(fields.get("imageUrl"));
+            return new ProductBulkRepository.Row(line, id, name, trimToNull(fields.get("description")),
+                    price, stock, imageUrl, categoryId);
+        }
+    }
+
+    private static BigDecimal parseDecimal(String text) {
+        String value = trimToNull(text);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Price must be a non-negative number");
+        }
+    }
+
+    private static int parseInt(String text, String field) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException(field + " must be a whole number");
+        }
+    }
+
+    private static long parseLong(String text, String field) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException(field + " must be a whole number");
+        }
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable root = error;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+}
@@ -0,0 +1,210 @@
+package com.sanjay.ecommerce.service;
+
+import com.sanjay.ecommerce.model.Product;
+import com.sanjay.ecommerce.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+// Product images on local disk. Originals are stored under a fresh name per upload so every
+// URL is immutable; thumbnails are rendered by a bounded worker pool next to the original
+// as <name>-w<width>.<ext>, and until one exists the original is served in its place.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class ProductImageService {
+    public static final String URL_PREFIX = "/uploads/products/";
+    public static final Pattern FILE_NAME = Pattern.compile("[\\w-]+\\.(jpg|png|gif)");
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", "jpg",
+            "image/png", "png",
+            "image/gif", "gif"
+    );
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${uploads.dir:uploads}")
+    private String uploadsDir;
+
+    @Value("${uploads.thumbnail-widths:160,320,640}")
+    private int[] thumbnailWidths;
+
+    @Value("${uploads.thumbnail-workers:2}")
+    private int thumbnailWorkers;
+
+    @Value("${uploads.thumbnail-queue:64}")
+    private int thumbnailQueue;
+
+    private Path productDir;
+    private ThreadPoolExecutor thumbnailExecutor;
+
+    @PostConstruct
+    public void init() throws IOException {
+        productDir = Paths.get(uploadsDir, "products").toAbsolutePath().normalize();
+        Files.createDirectories(productDir);
+        Arrays.sort(thumbnailWidths);
+
+        // Bounded queue: a burst of uploads waits here instead of piling up threads or memory
+        AtomicInteger threadCount = new AtomicInteger();
+        thumbnailExecutor = new ThreadPoolExecutor(thumbnailWorkers, thumbnailWorkers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(thumbnailQueue), runnable -> {
+            Thread thread = new Thread(runnable, "thumbnail-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        thumbnailExecutor.shutdownNow();
+    }
+
+    public Product uploadImage(Long productId, MultipartFile file) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        if (file == null || file.isEmpty()) {
+            throw new RuntimeException("Image file is required");
+        }
+        String extension = EXTENSIONS.get(file.getContentType());
+        if (extension == null) {
+            throw new RuntimeException("Only JPEG, PNG and GIF images are supported");
+        }
+
+        String fileName = productId + "-" + UUID.randomUUID().toString().replace("-", "").substring(0, 12) + "." + extension;
+        Path original = productDir.resolve(fileName);
+        try (InputStream in = file.getInputStream()) {
+            Path temp = Files.createTempFile(productDir, "upload-", ".tmp");
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, original, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store image");
+        }
+
+        try {
+            thumbnailExecutor.execute(() -> renderThumbnails(original, extension));
+        } catch (RejectedExecutionException e) {
+            // Queue full: the original keeps being served for every width
+            log.warn("Thumbnail queue full, skipping thumbnails for {}", fileName);
+        }
+
+        product.setImageUrl(URL_PREFIX + fileName);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new CatalogChangedEvent(productId, true));
+        return saved;
+    }
+
+    // The file to send for a requested width: the smallest thumbnail at least that wide, else the original
+    public ImageFile resolve(String fileName, Integer width) {
+        if (!FILE_NAME.matcher(fileName).matches()) {
+            return null;
+        }
+        Path original = productDir.resolve(fileName);
+        if (!Files.isRegularFile(original)) {
+            return null;
+        }
+        if (width != null) {
+            for (int thumbnailWidth : thumbnailWidths) {
+                if (thumbnailWidth >= width) {
+                    Path thumbnail = productDir.resolve(thumbnailName(fileName, thumbnailWidth));
+                    if (Files.isRegularFile(thumbnail)) {
+                        return new ImageFile(thumbnail, true);
+                    }
+                    return new ImageFile(original, false);
+                }
+            }
+        }
+        return new ImageFile(original, true);
+    }
+
+    private void renderThumbnails(Path original, String extension) {
+        try {
+            BufferedImage source = ImageIO.read(original.toFile());
+            if (source == null) {
+                log.warn("Unreadable image {}", original.getFileName());
+                return;
+            }
+            for (int width : thumbnailWidths) {
+                Path target = original.resolveSibling(thumbnailName(original.getFileName().toString(), width));
+                // Rendered to a temp file and moved into place so a half-written thumbnail is never served
+                Path temp = Files.createTempFile(original.getParent(), "thumb-", ".tmp");
+                if (width >= source.getWidth()) {
+                    // Never upscale: the original already is the best image for this width
+                    Files.copy(original, temp, StandardCopyOption.REPLACE_EXISTING);
+                } else {
+                    BufferedImage thumbnail = scale(source, width, "png".equals(extension) || "gif".equals(extension));
+                    ImageIO.write(thumbnail, formatName(extension), temp.toFile());
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            log.debug("Rendered {} thumbnails for {}", thumbnailWidths.length, original.getFileName());
+        } catch (IOException e) {
+            log.warn("Thumbnail rendering failed for {}", original.getFileName(), e);
+        }
+    }
+
+    // Halves the image until close to the target before the final step, which keeps bilinear filtering sharp
+    private static BufferedImage scale(BufferedImage source, int width, boolean alpha) {
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D graphics = next.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            graphics.dispose();
+            current = next;
+        } while (currentWidth > width);
+        return current;
+    }
+
+    private static String formatName(String extension) {
+        return "jpg".equals(extension) ? "jpeg" : extension;
+    }
+
+    static String thumbnailName(String fileName, int width) {
+        int dot = fileName.lastIndexOf('.');
+        return fileName.substring(0, dot) + "-w" + width + fileName.substring(dot);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ImageFile {
+        private final Path path;
+        // False when the original stands in for a thumbnail that is not rendered yet
+        private final boolean cacheable;
+    }
+}
@@ -0,0 +1,559 @@
+package com.sanjay.ecommerce.service;
+
+import com.sanjay.ecommerce.dto.ProductDTO;
+import com.sanjay.ecommerce.repository.ProductRepository;
+import com.sanjay.ecommerce.repository.ProductSort;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+// Inverted index over product name and description. Terms map to compressed posting
+// lists; queries are ranked with BM25, with name matches weighted above description matches.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double NAME_BOOST = 3.0;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+
+    private final ProductRepository productRepository;
+
+    // Immutable; rebuilds and single-product updates both publish a new corpus, so a search
+    // always reads one consistent version
+    private volatile Corpus corpus = Corpus.EMPTY;
+
+    // Term maps of the indexed products, only touched by the synchronized writers
+    private Map<Long, IndexedDocument> documents = new HashMap<>();
+
+    private final ExecutorService indexExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild(productRepository.findSlice(null, ProductSort.DEFAULT, null, null));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!event.isStructural()) {
+            return;
+        }
+        Long productId = event.getProductId();
+        if (productId == null) {
+            // Catalog-wide change: re-index everything
+            indexExecutor.execute(() -> rebuild(productRepository.findSlice(null, ProductSort.DEFAULT, null, null)));
+            return;
+        }
+        indexExecutor.execute(() -> {
+            Optional<ProductDTO> product = productRepository.findDtoById(productId);
+            if (product.isPresent()) {
+                index(product.get());
+            } else {
+                remove(productId);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexExecutor.shutdownNow();
+    }
+
+    public synchronized void rebuild(List<ProductDTO> products) {
+        Map<String, TreeMap<Long, IndexedDocument>> names = new HashMap<>();
+        Map<String, TreeMap<Long, IndexedDocument>> descriptions = new HashMap<>();
+        Map<Long, IndexedDocument> rebuiltDocuments = new HashMap<>();
+        long totalNameLength = 0;
+        long totalDescriptionLength = 0;
+
+        for (ProductDTO product : products) {
+            IndexedDocument document = IndexedDocument.of(product);
+            rebuiltDocuments.put(product.getId(), document);
+            totalNameLength += document.nameLength;
+            totalDescriptionLength += document.descriptionLength;
+            document.nameTerms.keySet().forEach(term ->
+                    names.computeIfAbsent(term, t -> new TreeMap<>()).put(product.getId(), document));
+            document.descriptionTerms.keySet().forEach(term ->
+                    descriptions.computeIfAbsent(term, t -> new TreeMap<>()).put(product.getId(), document));
+        }
+
+        Corpus rebuilt = new Corpus(Terms.of(names, true), Terms.of(descriptions, false),
+                rebuiltDocuments.size(), totalNameLength, totalDescriptionLength);
+        documents = rebuiltDocuments;
+        corpus = rebuilt;
+        log.debug("Search index rebuilt with {} products and {} terms", rebuilt.documentCount,
+                rebuilt.nameIndex.size() + rebuilt.descriptionIndex.size());
+    }
+
+    // Re-indexes one product, rewriting only the posting blocks of its old and new terms
+    public synchronized void index(ProductDTO product) {
+        Corpus current = corpus;
+        IndexedDocument previous = documents.get(product.getId());
+        IndexedDocument document = IndexedDocument.of(product);
+        documents.put(product.getId(), document);
+        corpus = new Corpus(
+                current.nameIndex.with(changes(current.nameIndex, product.getId(),
+                        previous != null ? previous.nameTerms : Map.of(), previous != null ? previous.nameLength : 0,
+                        document.nameTerms, document.nameLength)),
+                current.descriptionIndex.with(changes(current.descriptionIndex, product.getId(),
+                        previous != null ? previous.descriptionTerms : Map.of(), previous != null ? previous.descriptionLength : 0,
+                        document.descriptionTerms, document.descriptionLength)),
+                current.documentCount + (previous == null ? 1 : 0),
+                current.totalNameLength + document.nameLength - (previous != null ? previous.nameLength : 0),
+                current.totalDescriptionLength + document.descriptionLength - (previous != null ? previous.descriptionLength : 0));
+    }
+
+    public synchronized void remove(Long productId) {
+        Corpus current = corpus;
+        IndexedDocument previous = documents.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        corpus = new Corpus(
+                current.nameIndex.with(changes(current.nameIndex, productId, previous.nameTerms, previous.nameLength, Map.of(), 0)),
+                current.descriptionIndex.with(changes(current.descriptionIndex, productId,
+                        previous.descriptionTerms, previous.descriptionLength, Map.of(), 0)),
+                current.documentCount - 1,
+                current.totalNameLength - previous.nameLength,
+                current.totalDescriptionLength - previous.descriptionLength);
+    }
+
+    // Ids of products matching every query term, best match first. The last term also
+    // matches as a prefix so results keep up with the user while they type.
+    //
+    // Postings are walked together in id order and only products holding every term are scored.
+    // Once the page window is full, runs of postings whose block bounds cannot beat the weakest
+    // kept score are skipped without being decoded.
+    public List<Long> search(String query, long offset, int limit) {
+        Corpus corpus = this.corpus;
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || corpus.documentCount == 0 || offset >= corpus.documentCount) {
+            return new ArrayList<>();
+        }
+
+        int documentCount = corpus.documentCount;
+        double averageNameLength = Math.max(1.0, (double) corpus.totalNameLength / documentCount);
+        double averageDescriptionLength = Math.max(1.0, (double) corpus.totalDescriptionLength / documentCount);
+
+        TermCursors[] required = new TermCursors[tokens.size()];
+        double maxTotal = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            boolean prefix = i == tokens.size() - 1;
+            TermCursors cursors = new TermCursors();
+            for (String term : expand(corpus, tokens.get(i), prefix)) {
+                cursors.add(corpus.nameIndex.get(term), documentCount, averageNameLength, NAME_BOOST);
+                cursors.add(corpus.descriptionIndex.get(term), documentCount, averageDescriptionLength, 1.0);
+            }
+            if (cursors.count == 0) {
+                return new ArrayList<>();
+            }
+            required[i] = cursors;
+            maxTotal += cursors.maxScore();
+        }
+
+        // The offset is below the document count here, so the window fits an int
+        int start = (int) offset;
+        int window = (int) Math.min(offset + limit, documentCount);
+        if (start >= window) {
+            return new ArrayList<>();
+        }
+        TopScores top = new TopScores(window);
+        long candidate = 0;
+        while (true) {
+            long next = candidate;
+            for (TermCursors cursors : required) {
+                long first = cursors.advance(candidate);
+                if (first == Long.MAX_VALUE) {
+                    return top.page(start);
+                }
+                next = Math.max(next, first);
+            }
+            if (top.isFull()) {
+                if (maxTotal <= top.threshold()) {
+                    break;
+                }
+                // Nothing up to the first block end can beat the window: jump past it
+                double bound = 0;
+                long blockEnd = Long.MAX_VALUE;
+                for (TermCursors cursors : required) {
+                    bound += cursors.blockBound();
+                    blockEnd = Math.min(blockEnd, cursors.blockEnd());
+                }
+                if (bound <= top.threshold()) {
+                    candidate = Math.max(next, blockEnd + 1);
+                    continue;
+                }
+            }
+            if (next != candidate) {
+                candidate = next;
+                continue;
+            }
+            double score = 0;
+            for (TermCursors cursors : required) {
+                score += cursors.score(candidate);
+            }
+            top.offer(candidate, score);
+            candidate++;
+        }
+        return top.page(start);
+    }
+
+    private static List<String> expand(Corpus corpus, String token, boolean prefix) {
+        if (!prefix) {
+            return List.of(token);
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        terms.add(token);
+        corpus.nameIndex.collect(token, terms, MAX_PREFIX_EXPANSIONS);
+        corpus.descriptionIndex.collect(token, terms, MAX_PREFIX_EXPANSIONS);
+        return new ArrayList<>(terms);
+    }
+
+    private static double bm25(double weight, int freq, int length, double averageLength) {
+        return weight * (freq * (K1 + 1)) / (freq + K1 * (1 - B + B * length / averageLength));
+    }
+
+    // Postings to rewrite for one product's field: terms whose frequency changed, plus every
+    // current term when the field length changed, since postings carry the length
+    private static Map<String, PostingList> changes(Terms index, Long productId,
+                                                    Map<String, Integer> previous, int previousLength,
+                                                    Map<String, Integer> current, int currentLength) {
+        Set<String> terms = new HashSet<>(previous.keySet());
+        terms.addAll(current.keySet());
+        Map<String, PostingList> changes = new HashMap<>();
+        for (String term : terms) {
+            int freq = current.getOrDefault(term, 0);
+            if (freq == previous.getOrDefault(term, 0) && (freq == 0 || currentLength == previousLength)) {
+                continue;
+            }
+            PostingList postings = index.get(term);
+            changes.put(term, (postings != null ? postings : PostingList.EMPTY).with(productId, freq, currentLength));
+        }
+        return changes;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Posting lists and length totals of one version of the index
+    private static final class Corpus {
+        private static final Corpus EMPTY = new Corpus(Terms.EMPTY, Terms.EMPTY, 0, 0, 0);
+
+        private final Terms nameIndex;
+        private final Terms descriptionIndex;
+        private final int documentCount;
+        private final long totalNameLength;
+        private final long totalDescriptionLength;
+
+        private Corpus(Terms nameIndex, Terms descriptionIndex, int documentCount,
+                       long totalNameLength, long totalDescriptionLength) {
+            this.nameIndex = nameIndex;
+            this.descriptionIndex = descriptionIndex;
+            this.documentCount = documentCount;
+            this.totalNameLength = totalNameLength;
+            this.totalDescriptionLength = totalDescriptionLength;
+        }
+    }
+
+    // Immutable term dictionary of one field: the postings of the last rebuild plus a small map
+    // of postings changed since, which is folded into a new base once it grows too large
+    private static final class Terms {
+        private static final Terms EMPTY = new Terms(new TreeMap<>(), new TreeMap<>());
+        private static final int RECENT_LIMIT = 512;
+
+        private final NavigableMap<String, PostingList> base;
+        // An empty list marks a term removed since the base was built
+        private final NavigableMap<String, PostingList> recent;
+
+        private Terms(NavigableMap<String, PostingList> base, NavigableMap<String, PostingList> recent) {
+            this.base = base;
+            this.recent = recent;
+        }
+
+        static Terms of(Map<String, TreeMap<Long, IndexedDocument>> postings, boolean nameField) {
+            TreeMap<String, PostingList> base = new TreeMap<>();
+            postings.forEach((term, documents) -> {
+                long[] ids = new long[documents.size()];
+                int[] freqs = new int[documents.size()];
+                int[] lengths = new int[documents.size()];
+                int i = 0;
+                for (Map.Entry<Long, IndexedDocument> entry : documents.entrySet()) {
+                    IndexedDocument document = entry.getValue();
+                    ids[i] = entry.getKey();
+                    freqs[i] = (nameField ? document.nameTerms : document.descriptionTerms).get(term);
+                    lengths[i++] = nameField ? document.nameLength : document.descriptionLength;
+                }
+                base.put(term, PostingList.of(ids, freqs, lengths, ids.length));
+            });
+            return new Terms(base, new TreeMap<>());
+        }
+
+        PostingList get(String term) {
+            PostingList postings = recent.get(term);
+            if (postings == null) {
+                postings = base.get(term);
+            }
+            return postings == null || postings.size() == 0 ? null : postings;
+        }
+
+        // Adds terms starting with prefix, in term order, until terms holds limit entries
+        void collect(String prefix, Set<String> terms, int limit) {
+            String upper = prefix + Character.MAX_VALUE;
+            TreeSet<String> matches = new TreeSet<>();
+            for (String term : base.subMap(prefix, true, upper, false).keySet()) {
+                if (matches.size() >= limit) {
+                    break;
+                }
+                if (get(term) != null) {
+                    matches.add(term);
+                }
+            }
+            recent.subMap(prefix, true, upper, false).forEach((term, postings) -> {
+                if (postings.size() > 0) {
+                    matches.add(term);
+                }
+            });
+            for (String term : matches) {
+                if (terms.size() >= limit) {
+                    break;
+                }
+                terms.add(term);
+            }
+        }
+
+        Terms with(Map<String, PostingList> changes) {
+            if (changes.isEmpty()) {
+                return this;
+            }
+            TreeMap<String, PostingList> merged = new TreeMap<>(recent);
+            merged.putAll(changes);
+            if (merged.size() <= RECENT_LIMIT) {
+                return new Terms(base, merged);
+            }
+            TreeMap<String, PostingList> compacted = new TreeMap<>(base);
+            merged.forEach((term, postings) -> {
+                if (postings.size() == 0) {
+                    compacted.remove(term);
+                } else {
+                    compacted.put(term, postings);
+                }
+            });
+            return new Terms(compacted, new TreeMap<>());
+        }
+
+        int size() {
+            return base.size() + recent.size();
+        }
+    }
+
+    // Cursors over every posting list of one query term; a product matches the term when any of
+    // them holds it, and its score for the term is the sum over those lists
+    private static final class TermCursors {
+        private PostingList.Cursor[] cursors = new PostingList.Cursor[4];
+        private double[] weights = new double[4];
+        private double[] averageLengths = new double[4];
+        private double maxScore;
+        private int count;
+
+        void add(PostingList postings, int documentCount, double averageLength, double boost) {
+            if (postings == null) {
+                return;
+            }
+            if (count == cursors.length) {
+                cursors = Arrays.copyOf(cursors, count * 2);
+                weights = Arrays.copyOf(weights, count * 2);
+                averageLengths = Arrays.copyOf(averageLengths, count * 2);
+            }
+            double idf = Math.log(1 + (documentCount - postings.size() + 0.5) / (postings.size() + 0.5));
+            cursors[count] = postings.cursor();
+            weights[count] = boost * idf;
+            averageLengths[count] = averageLength;
+            maxScore += bm25(weights[count], postings.maxFreq(), postings.minLength(), averageLength);
+            count++;
+        }
+
+        double maxScore() {
+            return maxScore;
+        }
+
+        // Smallest id of at least target held by any list, or Long.MAX_VALUE when all are exhausted
+        long advance(long target) {
+            long first = Long.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                PostingList.Cursor cursor = cursors[i];
+                if (cursor.advance(target)) {
+                    first = Math.min(first, cursor.id());
+                }
+            }
+            return first;
+        }
+
+        // Best score any product can get from the lists' current blocks
+        double blockBound() {
+            double bound = 0;
+            for (int i = 0; i < count; i++) {
+                PostingList.Cursor cursor = cursors[i];
+                if (cursor.id() != Long.MAX_VALUE) {
+                    bound += bm25(weights[i], cursor.blockMaxFreq(), cursor.blockMinLength(), averageLengths[i]);
+                }
+            }
+            return bound;
+        }
+
+        long blockEnd() {
+            long end = Long.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                PostingList.Cursor cursor = cursors[i];
+                if (cursor.id() != Long.MAX_VALUE) {
+                    end = Math.min(end, cursor.blockLastId());
+                }
+            }
+            return end;
+        }
+
+        double score(long id) {
+            double score = 0;
+            for (int i = 0; i < count; i++) {
+                PostingList.Cursor cursor = cursors[i];
+                if (cursor.id() == id) {
+                    score += bm25(weights[i], cursor.freq(), cursor.length(), averageLengths[i]);
+                }
+            }
+            return score;
+        }
+    }
+
+    // Bounded min-heap of the best (id, score) pairs seen, weakest at the root. Ids arrive in
+    // ascending order, so a tie with the weakest kept score never displaces it and ties rank by id.
+    private static final class TopScores {
+        private final long[] ids;
+        private final double[] scores;
+        private int size;
+
+        TopScores(int capacity) {
+            ids = new long[capacity];
+            scores = new double[capacity];
+        }
+
+        boolean isFull() {
+            return size == ids.length;
+        }
+
+        double threshold() {
+            return scores[0];
+        }
+
+        void offer(long id, double score) {
+            if (size < ids.length) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) / 2;
+                    if (!weaker(score, id, scores[parent], ids[parent])) {
+                        break;
+                    }
+                    ids[i] = ids[parent];
+                    scores[i] = scores[parent];
+                    i = parent;
+                }
+                ids[i] = id;
+                scores[i] = score;
+            } else if (score > scores[0]) {
+                siftDown(id, score);
+            }
+        }
+
+        // Ids ranked best first, from start to the end of the window
+        List<Long> page(int start) {
+            List<Long> ranked = new ArrayList<>(Math.max(0, size - start));
+            int remaining = size;
+            long[] order = new long[size];
+            while (remaining > 0) {
+                order[--remaining] = ids[0];
+                size--;
+                if (size > 0) {
+                    siftDown(ids[size], scores[size]);
+                }
+            }
+            for (int i = start; i < order.length; i++) {
+                ranked.add(order[i]);
+            }
+            return ranked;
+        }
+
+        private void siftDown(long id, double score) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && weaker(scores[child + 1], ids[child + 1], scores[child], ids[child])) {
+                    child++;
+                }
+                if (!weaker(scores[child], ids[child], score, id)) {
+                    break;
+                }
+                ids[i] = ids[child];
+                scores[i] = scores[child];
+                i = child;
+            }
+            ids[i] = id;
+            scores[i] = score;
+        }
+
+        private static boolean weaker(double score, long id, double otherScore, long otherId) {
+            return score < otherScore || (score == otherScore && id > otherId);
+        }
+    }
+
+    private static final class IndexedDocument {
+        private final Map<String, Integer> nameTerms;
+        private final Map<String, Integer> descriptionTerms;
+        private final int nameLength;
+        private final int descriptionLength;
+
+        private IndexedDocument(List<String> name, List<String> description) {
+            this.nameTerms = frequencies(name);
+            this.descriptionTerms = frequencies(description);
+            this.nameLength = name.size();
+            this.descriptionLength = description.size();
+        }
+
+        static IndexedDocument of(ProductDTO product) {
+            return new IndexedDocument(tokenize(product.getName()), tokenize(product.getDescription()));
+        }
+
+        private static Map<String, Integer> frequencies(List<String> tokens) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String token : tokens) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+            return frequencies;
+        }
+    }
+}
@@ -1,81 +1,227 @@
 package com.sanjay.ecommerce.service;
 
-import com.sanjay.ecommerce.model.Product;
+import com.sanjay.ecommerce.dto.CursorPage;
+import com.sanjay.ecommerce.dto.FacetsDTO;
+import com.sanjay.ecommerce.dto.ProductDTO;
+import com.sanjay.ecommerce.dto.SuggestionDTO;
 import com.sanjay.ecommerce.model.Category;
+import com.sanjay.ecommerce.repository.ProductCursor;
 import com.sanjay.ecommerce.repository.ProductRepository;
 import com.sanjay.ecommerce.repository.CategoryRepository;
+import com.sanjay.ecommerce.repository.ProductSort;
+import com.sanjay.ecommerce.repository.ProductSpecifications;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Comparator;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
 
+// Reads only. Methods served from the in-memory indexes run outside any transaction so they never
+// take a database connection; their SQL fallbacks run in the repositories' own.
 @Service
 @RequiredArgsConstructor
-@Transactional
+@Transactional(readOnly = true)
 public class ProductService {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int MAX_SHOWCASE_SIZE = 50;
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final CatalogIndex catalogIndex;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggester productSuggester;
+    private final FacetIndex facetIndex;
+    private final CatalogVersions catalogVersions;
+    private final BestSellers bestSellers;
+
+    @Value("${catalog.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${search.index.enabled:true}")
+    private boolean searchIndexEnabled;
 
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ProductDTO> getAllProducts() {
+        if (snapshotEnabled) {
+            return catalogIndex.current().all();
+        }
+        return productRepository.findAllDtos();
     }
 
-    public Product getProductById(Long id) {
-        return productRepository.findById(id)
+    public ProductDTO getProductById(Long id) {
+        return productRepository.findDtoById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
     }
 
-    public List<Product> searchProducts(String query) {
-        return productRepository.searchProducts(query);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ProductDTO> getTopRatedProducts(int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_SHOWCASE_SIZE));
+        if (snapshotEnabled) {
+            List<ProductDTO> products = catalogIndex.current().query(null, ProductSort.RATING, null, null);
+            return new ArrayList<>(products.subList(0, Math.min(size, products.size())));
+        }
+        return productRepository.findTopRatedProducts(PageRequest.of(0, size));
     }
 
-    public List<Product> getProductsByCategory(Long categoryId) {
-        return productRepository.findByCategoryId(categoryId);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ProductDTO> getLatestProducts(int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_SHOWCASE_SIZE));
+        if (snapshotEnabled) {
+            List<ProductDTO> products = catalogIndex.current().query(null, ProductSort.NEWEST, null, null);
+            return new ArrayList<>(products.subList(0, Math.min(size, products.size())));
+        }
+        return productRepository.findLatestProducts(PageRequest.of(0, size));
     }
 
-    public List<Product> filterAndSortProducts(Long categoryId, String sortBy, Double minPrice, Double maxPrice) {
-        List<Product> products;
-
-        if (categoryId != null) {
-            products = productRepository.findByCategoryId(categoryId);
-        } else {
-            products = productRepository.findAll();
+    // Most units sold over the window, from BestSellers
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ProductDTO> getTrendingProducts(String window, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_SHOWCASE_SIZE));
+        List<Long> ids = bestSellers.top(BestSellers.Window.from(window), size).stream()
+                .map(BestSellers.Entry::getProductId)
+                .toList();
+        Map<Long, ProductDTO> products = new HashMap<>();
+        if (snapshotEnabled) {
+            for (Long id : ids) {
+                ProductDTO product = catalogIndex.current().findById(id);
+                if (product != null) {
+                    products.put(id, product);
+                }
+            }
+        } else if (!ids.isEmpty()) {
+            productRepository.findDtosByIdIn(ids).forEach(product -> products.put(product.getId(), product));
         }
+        // Products deleted since they sold are left out
+        return ids.stream().map(products::get).filter(Objects::nonNull).toList();
+    }
 
-        // Filter by price
-        if (minPrice != null || maxPrice != null) {
-            products = products.stream()
-                    .filter(p -> {
-                        if (minPrice != null && p.getPrice().doubleValue() < minPrice) return false;
-                        if (maxPrice != null && p.getPrice().doubleValue() > maxPrice) return false;
-                        return true;
-                    })
-                    .collect(Collectors.toList());
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ProductDTO> searchProducts(String query, int page, int size) {
+        int pageNumber = Math.max(0, page);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        if (!searchIndexEnabled) {
+            return productRepository.searchProducts(query, PageRequest.of(pageNumber, pageSize));
         }
 
-        // Sort
-        if (sortBy != null) {
-            switch (sortBy) {
-                case "price_low":
-                    products.sort(Comparator.comparing(Product::getPrice));
-                    break;
-                case "price_high":
-                    products.sort(Comparator.comparing(Product::getPrice).reversed());
-                    break;
-                case "rating":
-                    products.sort(Comparator.comparing(Product::getAverageRating).reversed());
-                    break;
-                case "newest":
-                    products.sort(Comparator.comparing(Product::getCreatedAt).reversed());
-                    break;
+        List<Long> ids = productSearchIndex.search(query, (long) pageNumber * pageSize, pageSize);
+        return loadInOrder(ids);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public FacetsDTO getFacets(Long categoryId, Double minPrice, Double maxPrice, Integer minRating, Boolean inStock) {
+        return facetIndex.facets(categoryId, minPrice, maxPrice, minRating, inStock);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        return productSuggester.suggest(prefix, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+
+    // Resolves ranked ids to products, reading the snapshot first and the database for anything it lacks yet
+    private List<ProductDTO> loadInOrder(List<Long> ids) {
+        Map<Long, ProductDTO> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            ProductDTO product = snapshotEnabled ? catalogIndex.current().findById(id) : null;
+            if (product != null) {
+                found.put(id, product);
+            } else {
+                missing.add(id);
             }
         }
+        if (!missing.isEmpty()) {
+            productRepository.findDtosByIdIn(missing).forEach(product -> found.put(product.getId(), product));
+        }
 
+        List<ProductDTO> products = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductDTO product = found.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
         return products;
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ProductDTO> getProductsByCategory(Long categoryId) {
+        if (snapshotEnabled) {
+            return catalogIndex.current().query(categoryId, ProductSort.DEFAULT, null, null);
+        }
+        return productRepository.findDtosByCategoryId(categoryId);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ProductDTO> filterAndSortProducts(Long categoryId, String sortBy, Double minPrice, Double maxPrice) {
+        if (snapshotEnabled) {
+            return catalogIndex.current().query(categoryId, ProductSort.from(sortBy), minPrice, maxPrice);
+        }
+        return productRepository.findSlice(
+                ProductSpecifications.filter(categoryId, minPrice, maxPrice),
+                ProductSort.from(sortBy),
+                null,
+                null
+        );
+    }
+
+    public CursorPage<ProductDTO> getProductPage(Long categoryId, String sortBy, Double minPrice, Double maxPrice,
+                                                 String cursor, int size) {
+        ProductSort sort = ProductSort.from(sortBy);
+        ProductCursor after = cursor != null && !cursor.isBlank() ? ProductCursor.decode(cursor, sort) : null;
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        List<ProductDTO> products = productRepository.findSlice(
+                ProductSpecifications.filter(categoryId, minPrice, maxPrice),
+                sort,
+                after,
+                pageSize + 1
+        );
+
+        boolean hasMore = products.size() > pageSize;
+        if (hasMore) {
+            products = products.subList(0, pageSize);
+        }
+        String nextCursor = hasMore
+                ? ProductCursor.after(sort, products.get(products.size() - 1)).encode()
+                : null;
+
+        return CursorPage.<ProductDTO>builder()
+                .items(products)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    // Version of whatever the listing endpoints will serve: the snapshot's when it is in use
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CatalogVersions.Stamp getListingStamp() {
+        return snapshotEnabled ? catalogIndex.current().getStamp() : catalogVersions.global();
+    }
+
+    // Version of the facet counts, which are applied to new snapshots in the background
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CatalogVersions.Stamp getFacetStamp() {
+        return facetIndex.stamp();
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CatalogVersions.Stamp getProductStamp(Long productId) {
+        return catalogVersions.product(productId);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public String etag(String scope, CatalogVersions.Stamp stamp) {
+        return catalogVersions.etag(scope, stamp);
+    }
+
     public List<Category> getAllCategories() {
         return categoryRepository.findAll();
     }
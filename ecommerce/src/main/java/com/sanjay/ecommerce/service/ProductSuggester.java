@@ -0,0 +1,272 @@
+package com.sanjay.ecommerce.service;
+
+import com.sanjay.ecommerce.dto.ProductDTO;
+import com.sanjay.ecommerce.dto.SuggestionDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Typeahead over product and category names. Every word start of a name becomes a key in
+// one sorted array, so a prefix is a contiguous key range; a max-score segment tree over that
+// array yields the best N entries of any range without scanning it.
+@Component
+@RequiredArgsConstructor
+public class ProductSuggester {
+    private static final String PRODUCT = "product";
+    private static final String CATEGORY = "category";
+
+    private final CatalogIndex catalogIndex;
+
+    private volatile SuggestionIndex index;
+    private final AtomicBoolean building = new AtomicBoolean();
+
+    private final ExecutorService buildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "suggest-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        String key = prefix == null ? "" : prefix.trim().toLowerCase(Locale.ROOT);
+        if (key.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return currentIndex().suggest(key, limit);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        buildExecutor.shutdownNow();
+    }
+
+    // Suggestions follow structural catalog changes only: stock and rating patches keep the
+    // generation, so popularity scores are as of the last rebuild. The first index is built by the
+    // first request, which waits for it; a newer generation is built off the request thread while
+    // the previous index keeps answering.
+    private SuggestionIndex currentIndex() {
+        SuggestionIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                if (index == null) {
+                    index = new SuggestionIndex(catalogIndex.current());
+                }
+                current = index;
+            }
+        }
+        if (current.generation != catalogIndex.current().getGeneration() && building.compareAndSet(false, true)) {
+            buildExecutor.execute(() -> {
+                try {
+                    index = new SuggestionIndex(catalogIndex.current());
+                } finally {
+                    building.set(false);
+                }
+            });
+        }
+        return current;
+    }
+
+    private static final class SuggestionIndex {
+        private final long generation;
+
+        private final String[] texts;
+        private final String[] types;
+        private final long[] ids;
+
+        // Lower-cased texts; key i is the suffix of keyEntry[i]'s text from keyOffset[i]
+        private final String[] normalized;
+        private final int[] keyEntry;
+        private final int[] keyOffset;
+        private final double[] keyScore;
+
+        // Iterative segment tree over key positions holding the position of the best score
+        private final int leafCount;
+        private final int[] best;
+
+        private SuggestionIndex(CatalogSnapshot snapshot) {
+            this.generation = snapshot.getGeneration();
+
+            List<String> entryTexts = new ArrayList<>();
+            List<String> entryTypes = new ArrayList<>();
+            List<Long> entryIds = new ArrayList<>();
+            List<Double> entryScores = new ArrayList<>();
+            Map<Long, String> categoryNames = new HashMap<>();
+            Map<Long, Integer> categorySizes = new HashMap<>();
+
+            for (ProductDTO product : snapshot.all()) {
+                entryTexts.add(product.getName());
+                entryTypes.add(PRODUCT);
+                entryIds.add(product.getId());
+                entryScores.add(popularity(product));
+                if (product.getCategoryId() != null) {
+                    categoryNames.putIfAbsent(product.getCategoryId(), product.getCategoryName());
+                    categorySizes.merge(product.getCategoryId(), 1, Integer::sum);
+                }
+            }
+            for (Map.Entry<Long, String> category : categoryNames.entrySet()) {
+                entryTexts.add(category.getValue());
+                entryTypes.add(CATEGORY);
+                entryIds.add(category.getKey());
+                // Category matches lead their product matches: a whole aisle is usually the better completion
+                entryScores.add(10.0 + Math.log1p(categorySizes.get(category.getKey())));
+            }
+
+            this.texts = entryTexts.toArray(new String[0]);
+            this.types = entryTypes.toArray(new String[0]);
+            this.ids = entryIds.stream().mapToLong(Long::longValue).toArray();
+
+            this.normalized = new String[texts.length];
+            List<int[]> keyed = new ArrayList<>();
+            for (int entry = 0; entry < texts.length; entry++) {
+                normalized[entry] = texts[entry] == null ? "" : texts[entry].trim().toLowerCase(Locale.ROOT);
+                for (int offset : wordStarts(normalized[entry])) {
+                    keyed.add(new int[]{entry, offset});
+                }
+            }
+            keyed.sort((a, b) -> compareSuffixes(normalized[a[0]], a[1], normalized[b[0]], b[1]));
+
+            int keyCount = keyed.size();
+            this.keyEntry = new int[keyCount];
+            this.keyOffset = new int[keyCount];
+            this.keyScore = new double[keyCount];
+            for (int i = 0; i < keyCount; i++) {
+                keyEntry[i] = keyed.get(i)[0];
+                keyOffset[i] = keyed.get(i)[1];
+                keyScore[i] = entryScores.get(keyEntry[i]);
+            }
+
+            int leaves = 1;
+            while (leaves < Math.max(1, keyCount)) {
+                leaves <<= 1;
+            }
+            this.leafCount = leaves;
+            this.best = new int[2 * leaves];
+            Arrays.fill(best, -1);
+            for (int i = 0; i < keyCount; i++) {
+                best[leaves + i] = i;
+            }
+            for (int node = leaves - 1; node > 0; node--) {
+                best[node] = better(best[2 * node], best[2 * node + 1]);
+            }
+        }
+
+        private List<SuggestionDTO> suggest(String prefix, int limit) {
+            int from = lowerBound(prefix, false);
+            int to = lowerBound(prefix, true);
+            List<SuggestionDTO> suggestions = new ArrayList<>();
+            if (from >= to) {
+                return suggestions;
+            }
+
+            // Best-first over subranges: take the range maximum, then split around it
+            PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> Double.compare(keyScore[b[2]], keyScore[a[2]]));
+            ranges.add(new int[]{from, to, rangeBest(from, to)});
+            Set<Integer> seen = new HashSet<>();
+            while (!ranges.isEmpty() && suggestions.size() < limit) {
+                int[] range = ranges.poll();
+                int position = range[2];
+                int entry = keyEntry[position];
+                if (seen.add(entry)) {
+                    suggestions.add(SuggestionDTO.builder()
+                            .text(texts[entry])
+                            .type(types[entry])
+                            .id(ids[entry])
+                            .build());
+                }
+                if (range[0] < position) {
+                    ranges.add(new int[]{range[0], position, rangeBest(range[0], position)});
+                }
+                if (position + 1 < range[1]) {
+                    ranges.add(new int[]{position + 1, range[1], rangeBest(position + 1, range[1])});
+                }
+            }
+            return suggestions;
+        }
+
+        private int rangeBest(int from, int to) {
+            int result = -1;
+            for (int lo = from + leafCount, hi = to + leafCount; lo < hi; lo >>= 1, hi >>= 1) {
+                if ((lo & 1) == 1) {
+                    result = better(result, best[lo++]);
+                }
+                if ((hi & 1) == 1) {
+                    result = better(result, best[--hi]);
+                }
+            }
+            return result;
+        }
+
+        private int better(int a, int b) {
+            if (a < 0) {
+                return b;
+            }
+            if (b < 0) {
+                return a;
+            }
+            return keyScore[b] > keyScore[a] ? b : a;
+        }
+
+        // First key not below the probe; with pastPrefix, the first key past every key starting with it
+        private int lowerBound(String probe, boolean pastPrefix) {
+            int lo = 0;
+            int hi = keyEntry.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int comparison = compareKey(mid, probe);
+                if (comparison < 0 || (pastPrefix && comparison == 0)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private static double popularity(ProductDTO product) {
+            double rating = product.getAverageRating() != null ? product.getAverageRating() : 0.0;
+            int reviews = product.getReviewCount() != null ? product.getReviewCount() : 0;
+            return rating + Math.log1p(reviews);
+        }
+
+        // The key against the probe, 0 when the key starts with it
+        private int compareKey(int position, String probe) {
+            String text = normalized[keyEntry[position]];
+            int offset = keyOffset[position];
+            int length = Math.min(text.length() - offset, probe.length());
+            for (int i = 0; i < length; i++) {
+                int difference = text.charAt(offset + i) - probe.charAt(i);
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+            return length < probe.length() ? -1 : 0;
+        }
+
+        // String.compareTo of a.substring(aOffset) and b.substring(bOffset) without the copies
+        private static int compareSuffixes(String a, int aOffset, String b, int bOffset) {
+            int length = Math.min(a.length() - aOffset, b.length() - bOffset);
+            for (int i = 0; i < length; i++) {
+                int difference = a.charAt(aOffset + i) - b.charAt(bOffset + i);
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+            return (a.length() - aOffset) - (b.length() - bOffset);
+        }
+
+        // "zeta phone pro" -> 0, 5, 11
+        private static List<Integer> wordStarts(String text) {
+            List<Integer> starts = new ArrayList<>();
+            for (int i = 0; i < text.length(); i++) {
+                if ((i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)))
+                        && Character.isLetterOrDigit(text.charAt(i))) {
+                    starts.add(i);
+                }
+            }
+            return starts;
+        }
+    }
+}
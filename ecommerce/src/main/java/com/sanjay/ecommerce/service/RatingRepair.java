@@ -0,0 +1,53 @@
+package com.sanjay.ecommerce.service;
+
+import com.sanjay.ecommerce.repository.RatingJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.List;
+
+// Puts product rating aggregates back in line with the reviews table. ReviewService keeps them
+// by deltas; every ratings.repair-interval-ms, and on startup, one pass over reviews finds the
+// products whose aggregates no longer match and recounts just those. A recount holds the product
+// row lock, which every review write for that product also takes, so no write can land half-counted.
+@Slf4j
+@Component
+public class RatingRepair {
+    private final RatingJdbcRepository ratingRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
+
+    public RatingRepair(RatingJdbcRepository ratingRepository, ApplicationEventPublisher eventPublisher,
+                        PlatformTransactionManager transactionManager) {
+        this.ratingRepository = ratingRepository;
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        repair();
+    }
+
+    @Scheduled(fixedDelayString = "${ratings.repair-interval-ms:3600000}", initialDelayString = "${ratings.repair-interval-ms:3600000}")
+    public void repair() {
+        List<Long> drifted = ratingRepository.findDrifted();
+        for (Long productId : drifted) {
+            transaction.executeWithoutResult(status -> {
+                // The lock comes first: the recount must see every review write that committed before it
+                if (ratingRepository.lock(productId)) {
+                    ratingRepository.recompute(productId);
+                    eventPublisher.publishEvent(new CatalogChangedEvent(productId, false));
+                }
+            });
+        }
+        if (!drifted.isEmpty()) {
+            log.info("Rating aggregates recounted for {} products", drifted.size());
+        }
+    }
+}
@@ -1,25 +1,80 @@
 package com.sanjay.ecommerce.service;
 
+import com.sanjay.ecommerce.dto.CursorPage;
+import com.sanjay.ecommerce.dto.RatingSummaryDTO;
+import com.sanjay.ecommerce.dto.ReviewDTO;
 import com.sanjay.ecommerce.model.*;
 import com.sanjay.ecommerce.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+// Each review write adjusts its product's rating aggregates by a delta in the same transaction,
+// instead of recounting the product's reviews; RatingRepair corrects any drift
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class ReviewService {
+    private static final int MAX_REVIEW_PAGE_SIZE = 50;
+
     private final ReviewRepository reviewRepository;
     private final ProductRepository productRepository;
+    private final RatingJdbcRepository ratingRepository;
+    private final ReviewJdbcRepository reviewJdbcRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional(readOnly = true)
+    public CursorPage<ReviewDTO> getProductReviews(Long productId, String sortBy, Integer stars, String cursor, int size) {
+        ReviewSort sort = ReviewSort.from(sortBy);
+        if (stars != null) {
+            validateRating(stars);
+            // Reviews with one rating have nothing to rank by it
+            sort = ReviewSort.RECENT;
+        }
+        ReviewCursor after = cursor != null && !cursor.isBlank() ? ReviewCursor.decode(cursor, sort) : null;
+        int pageSize = Math.max(1, Math.min(size, MAX_REVIEW_PAGE_SIZE));
+
+        // Fetch one extra review to learn whether another page exists without a COUNT query
+        List<ReviewDTO> reviews = reviewJdbcRepository.findPage(productId, sort, stars, after, pageSize + 1);
+        boolean hasMore = reviews.size() > pageSize;
+        if (hasMore) {
+            reviews = reviews.subList(0, pageSize);
+        }
+        String nextCursor = hasMore
+                ? ReviewCursor.after(sort, reviews.get(reviews.size() - 1)).encode()
+                : null;
+
+        return CursorPage.<ReviewDTO>builder()
+                .items(reviews)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
 
-    public List<Review> getProductReviews(Long productId) {
-        return reviewRepository.findByProductIdOrderByCreatedAtDesc(productId);
+    @Transactional(readOnly = true)
+    public RatingSummaryDTO getRatingSummary(Long productId) {
+        RatingJdbcRepository.Aggregate aggregate = ratingRepository.find(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        Map<Integer, Integer> stars = new LinkedHashMap<>();
+        for (int rating = 1; rating <= RatingJdbcRepository.MAX_STARS; rating++) {
+            stars.put(rating, aggregate.getStars()[rating - 1]);
+        }
+        return RatingSummaryDTO.builder()
+                .productId(productId)
+                .averageRating(aggregate.getAverageRating())
+                .reviewCount(aggregate.getReviewCount())
+                .stars(stars)
+                .build();
     }
 
-    public Review addReview(Long userId, Long productId, Integer rating, String comment) {
+    public ReviewDTO addReview(Long userId, Long productId, Integer rating, String comment) {
+        validateRating(rating);
+
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -41,42 +96,59 @@ public class ReviewService {
         review = reviewRepository.save(review);
 
         // Update product rating
-        updateProductRating(product);
+        updateProductRating(productId, null, rating);
 
-        return review;
+        return toDto(review);
     }
 
-    public Review updateReview(Long reviewId, Integer rating, String comment) {
-        Review review = reviewRepository.findById(reviewId)
+    public ReviewDTO updateReview(Long reviewId, Integer rating, String comment) {
+        validateRating(rating);
+
+        // Locked so that concurrent edits each take out the rating the other put in
+        Review review = reviewRepository.findByIdForUpdate(reviewId)
                 .orElseThrow(() -> new RuntimeException("Review not found"));
 
+        Integer previous = review.getRating();
         review.setRating(rating);
         review.setComment(comment);
         review = reviewRepository.save(review);
 
         // Update product rating
-        updateProductRating(review.getProduct());
+        updateProductRating(review.getProduct().getId(), previous, rating);
 
-        return review;
+        return toDto(review);
     }
 
     public void deleteReview(Long reviewId) {
-        Review review = reviewRepository.findById(reviewId)
+        Review review = reviewRepository.findByIdForUpdate(reviewId)
                 .orElseThrow(() -> new RuntimeException("Review not found"));
 
-        Product product = review.getProduct();
-        reviewRepository.deleteById(reviewId);
+        reviewRepository.delete(review);
 
         // Update product rating
-        updateProductRating(product);
+        updateProductRating(review.getProduct().getId(), review.getRating(), null);
     }
 
-    private void updateProductRating(Product product) {
-        Double avgRating = reviewRepository.getAverageRating(product.getId());
-        List<Review> reviews = reviewRepository.findByProductIdOrderByCreatedAtDesc(product.getId());
+    private static ReviewDTO toDto(Review review) {
+        return ReviewDTO.builder()
+                .id(review.getId())
+                .userId(review.getUser().getId())
+                .reviewerName(review.getUser().getFullName())
+                .rating(review.getRating())
+                .comment(review.getComment())
+                .createdAt(review.getCreatedAt())
+                .build();
+    }
+
+    private void validateRating(Integer rating) {
+        if (rating == null || rating < 1 || rating > RatingJdbcRepository.MAX_STARS) {
+            throw new RuntimeException("Rating must be between 1 and " + RatingJdbcRepository.MAX_STARS);
+        }
+    }
 
-        product.setAverageRating(avgRating != null ? avgRating : 0.0);
-        product.setReviewCount(reviews.size());
-        productRepository.save(product);
+    // One statement against the product row, however many reviews it has
+    private void updateProductRating(Long productId, Integer removed, Integer added) {
+        ratingRepository.applyChange(productId, removed, added);
+        eventPublisher.publishEvent(new CatalogChangedEvent(productId, false));
     }
 }
\ No newline at end of file
@@ -0,0 +1,308 @@
+package com.sanjay.ecommerce.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Immutable compressed bitmap of non-negative ints in the Roaring layout: values are split
+// by their high 16 bits into chunks, and each chunk is a sorted char array while sparse or a
+// 65536-bit bitset once it holds more than 4096 values.
+final class RoaringBitmap {
+    static final RoaringBitmap EMPTY = new RoaringBitmap(new char[0], new Container[0]);
+
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITSET_WORDS = 1024;
+
+    private final char[] keys;
+    private final Container[] containers;
+
+    private RoaringBitmap(char[] keys, Container[] containers) {
+        this.keys = keys;
+        this.containers = containers;
+    }
+
+    // values must be ascending and distinct
+    static RoaringBitmap of(int[] values, int count) {
+        List<Character> chunkKeys = new ArrayList<>();
+        List<Container> chunks = new ArrayList<>();
+        int start = 0;
+        while (start < count) {
+            char key = (char) (values[start] >>> 16);
+            int end = start;
+            while (end < count && (values[end] >>> 16) == key) {
+                end++;
+            }
+            char[] low = new char[end - start];
+            for (int i = start; i < end; i++) {
+                low[i - start] = (char) values[i];
+            }
+            chunkKeys.add(key);
+            chunks.add(Container.of(low, low.length));
+            start = end;
+        }
+        char[] keys = new char[chunkKeys.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = chunkKeys.get(i);
+        }
+        return new RoaringBitmap(keys, chunks.toArray(new Container[0]));
+    }
+
+    static RoaringBitmap ofUnsorted(int[] values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return of(sorted, sorted.length);
+    }
+
+    // Copy with the value present or absent, sharing every chunk but the value's
+    RoaringBitmap with(int value, boolean present) {
+        char key = (char) (value >>> 16);
+        char low = (char) value;
+        int index = Arrays.binarySearch(keys, key);
+        if (index < 0) {
+            if (!present) {
+                return this;
+            }
+            int at = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Container[] newContainers = new Container[containers.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, at);
+            System.arraycopy(containers, 0, newContainers, 0, at);
+            newKeys[at] = key;
+            newContainers[at] = Container.of(new char[]{low}, 1);
+            System.arraycopy(keys, at, newKeys, at + 1, keys.length - at);
+            System.arraycopy(containers, at, newContainers, at + 1, containers.length - at);
+            return new RoaringBitmap(newKeys, newContainers);
+        }
+        Container container = containers[index];
+        if (container.contains(low) == present) {
+            return this;
+        }
+        Container changed = container.with(low, present);
+        if (changed.cardinality == 0) {
+            char[] newKeys = new char[keys.length - 1];
+            Container[] newContainers = new Container[containers.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(containers, 0, newContainers, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(containers, index + 1, newContainers, index, containers.length - index - 1);
+            return new RoaringBitmap(newKeys, newContainers);
+        }
+        Container[] newContainers = containers.clone();
+        newContainers[index] = changed;
+        return new RoaringBitmap(keys, newContainers);
+    }
+
+    int cardinality() {
+        int cardinality = 0;
+        for (Container container : containers) {
+            cardinality += container.cardinality;
+        }
+        return cardinality;
+    }
+
+    RoaringBitmap and(RoaringBitmap other) {
+        List<Character> resultKeys = new ArrayList<>();
+        List<Container> resultContainers = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(other.containers[j]);
+                if (container.cardinality > 0) {
+                    resultKeys.add(keys[i]);
+                    resultContainers.add(container);
+                }
+                i++;
+                j++;
+            }
+        }
+        char[] result = new char[resultKeys.size()];
+        for (int k = 0; k < result.length; k++) {
+            result[k] = resultKeys.get(k);
+        }
+        return new RoaringBitmap(result, resultContainers.toArray(new Container[0]));
+    }
+
+    // |this AND other| without materializing the intersection
+    int andCardinality(RoaringBitmap other) {
+        int cardinality = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                cardinality += containers[i].andCardinality(other.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return cardinality;
+    }
+
+    private static final class Container {
+        private final char[] values;
+        private final long[] words;
+        private final int cardinality;
+
+        private Container(char[] values, long[] words, int cardinality) {
+            this.values = values;
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        static Container of(char[] sorted, int count) {
+            if (count <= ARRAY_LIMIT) {
+                return new Container(count == sorted.length ? sorted : Arrays.copyOf(sorted, count), null, count);
+            }
+            long[] words = new long[BITSET_WORDS];
+            for (int i = 0; i < count; i++) {
+                words[sorted[i] >>> 6] |= 1L << sorted[i];
+            }
+            return new Container(null, words, count);
+        }
+
+        // Copy with the value's membership flipped to present; the caller knows it differs
+        Container with(char value, boolean present) {
+            int count = cardinality + (present ? 1 : -1);
+            if (words != null && count > ARRAY_LIMIT) {
+                long[] changed = words.clone();
+                changed[value >>> 6] ^= 1L << value;
+                return new Container(null, changed, count);
+            }
+            char[] changed = new char[count];
+            int n = 0;
+            boolean placed = !present;
+            for (char current : sortedValues()) {
+                if (!placed && value < current) {
+                    changed[n++] = value;
+                    placed = true;
+                }
+                if (current != value) {
+                    changed[n++] = current;
+                }
+            }
+            if (!placed) {
+                changed[n] = value;
+            }
+            return Container.of(changed, count);
+        }
+
+        private char[] sortedValues() {
+            if (words == null) {
+                return cardinality == values.length ? values : Arrays.copyOf(values, cardinality);
+            }
+            char[] sorted = new char[cardinality];
+            int n = 0;
+            for (int k = 0; k < BITSET_WORDS; k++) {
+                long word = words[k];
+                while (word != 0) {
+                    sorted[n++] = (char) ((k << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return sorted;
+        }
+
+        private boolean contains(char value) {
+            if (words != null) {
+                return (words[value >>> 6] & (1L << value)) != 0;
+            }
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        Container and(Container other) {
+            if (words != null && other.words != null) {
+                long[] result = new long[BITSET_WORDS];
+                int cardinality = 0;
+                for (int k = 0; k < BITSET_WORDS; k++) {
+                    result[k] = words[k] & other.words[k];
+                    cardinality += Long.bitCount(result[k]);
+                }
+                if (cardinality > ARRAY_LIMIT) {
+                    return new Container(null, result, cardinality);
+                }
+                char[] values = new char[cardinality];
+                int n = 0;
+                for (int k = 0; k < BITSET_WORDS; k++) {
+                    long word = result[k];
+                    while (word != 0) {
+                        values[n++] = (char) ((k << 6) + Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+                return new Container(values, null, cardinality);
+            }
+            if (words != null) {
+                return other.and(this);
+            }
+            // At least this side is an array: the result can only shrink
+            char[] result = new char[cardinality];
+            int n = 0;
+            if (other.words != null) {
+                for (int k = 0; k < cardinality; k++) {
+                    if (other.contains(values[k])) {
+                        result[n++] = values[k];
+                    }
+                }
+            } else {
+                int a = 0;
+                int b = 0;
+                while (a < cardinality && b < other.cardinality) {
+                    if (values[a] < other.values[b]) {
+                        a++;
+                    } else if (values[a] > other.values[b]) {
+                        b++;
+                    } else {
+                        result[n++] = values[a];
+                        a++;
+                        b++;
+                    }
+                }
+            }
+            return Container.of(result, n);
+        }
+
+        int andCardinality(Container other) {
+            if (words != null && other.words != null) {
+                int cardinality = 0;
+                for (int k = 0; k < BITSET_WORDS; k++) {
+                    cardinality += Long.bitCount(words[k] & other.words[k]);
+                }
+                return cardinality;
+            }
+            if (words != null) {
+                return other.andCardinality(this);
+            }
+            int count = 0;
+            if (other.words != null) {
+                for (int k = 0; k < cardinality; k++) {
+                    if (other.contains(values[k])) {
+                        count++;
+                    }
+                }
+                return count;
+            }
+            int a = 0;
+            int b = 0;
+            while (a < cardinality && b < other.cardinality) {
+                if (values[a] < other.values[b]) {
+                    a++;
+                } else if (values[a] > other.values[b]) {
+                    b++;
+                } else {
+                    count++;
+                    a++;
+                    b++;
+                }
+            }
+            return count;
+        }
+    }
+}
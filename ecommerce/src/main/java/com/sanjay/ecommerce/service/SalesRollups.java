@@ -0,0 +1,279 @@
+package com.sanjay.ecommerce.service;
+
+import com.sanjay.ecommerce.dto.SalesPointDTO;
+import com.sanjay.ecommerce.model.Category;
+import com.sanjay.ecommerce.model.Order;
+import com.sanjay.ecommerce.model.OrderItem;
+import com.sanjay.ecommerce.model.SalesRollup;
+import com.sanjay.ecommerce.model.SalesRollup.Granularity;
+import com.sanjay.ecommerce.repository.SalesRollupJdbcRepository;
+import com.sanjay.ecommerce.repository.SalesRollupJdbcRepository.Row;
+import com.sanjay.ecommerce.repository.SalesRollupJdbcRepository.Segment;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Placed orders per time bucket, for charts over any range. Each committed order is added to an
+// in-memory minute bucket, for all orders and for every category it contains, and taken out of
+// it again if the order is cancelled (put back if reinstated); the buckets are
+// written to sales_rollups every sales.rollup.flush-interval-ms. Compaction then sums closed
+// minutes into hour rows and closed hours into day rows, recording how far each has got in
+// sales_rollup_marks. Minute rows are dropped after sales.rollup.minute-retention-hours; hour
+// and day rows are kept.
+//
+// A series reads the coarsest rows that cover each part of the range: day rows up to the day
+// mark, hour rows up to the hour mark and minute rows after it, so a year by day is a few
+// hundred rows. Orders still in memory are not included yet.
+@Slf4j
+@Component
+public class SalesRollups {
+    private static final int MAX_POINTS = 5000;
+
+    private final SalesRollupJdbcRepository rollupRepository;
+    private final TransactionTemplate transaction;
+    // Orders placed before this are backfilled from the orders table rather than recorded
+    private final LocalDateTime startedAt = LocalDateTime.now();
+
+    // Guarded by this
+    private Map<Key, Totals> pending = new HashMap<>();
+
+    @Value("${sales.rollup.compact-delay-ms:120000}")
+    private long compactDelayMs;
+
+    @Value("${sales.rollup.minute-retention-hours:48}")
+    private long minuteRetentionHours;
+
+    public SalesRollups(SalesRollupJdbcRepository rollupRepository, PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    // Counted once the order's transaction commits
+    public void orderPlaced(Order order) {
+        if (order.getOrderDate().isBefore(startedAt)) {
+            return;
+        }
+        record(order, 1);
+    }
+
+    // A declined payment or an admin cancelling; the order leaves the bucket it was placed in
+    public void orderCancelled(Order order) {
+        record(order, -1);
+    }
+
+    // A cancelled order moved back to a live status
+    public void orderReinstated(Order order) {
+        record(order, 1);
+    }
+
+    // Adds the order's totals, times sign, to its placement minute once the transaction commits
+    private void record(Order order, int sign) {
+        LocalDateTime minute = Granularity.MINUTE.truncate(order.getOrderDate());
+        Map<Key, Totals> totals = new HashMap<>();
+        long orderUnits = 0;
+        for (OrderItem item : order.getItems()) {
+            orderUnits += item.getQuantity();
+            Category category = item.getProduct().getCategory();
+            if (category != null) {
+                BigDecimal amount = item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
+                totals.merge(new Key(minute, category.getId()), new Totals(0, amount, item.getQuantity()), Totals::plus);
+            }
+        }
+        // An order with several lines in one category is still one order there
+        totals.replaceAll((key, categoryTotals) -> new Totals(1, categoryTotals.revenue, categoryTotals.units));
+        totals.put(new Key(minute, SalesRollup.ALL_CATEGORIES), new Totals(1, order.getTotalAmount(), orderUnits));
+        totals.replaceAll((key, value) -> value.times(sign));
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(totals);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(totals);
+            }
+        });
+    }
+
+    // First start: the history so far goes into minute rows, which compaction then rolls up
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        transaction.executeWithoutResult(status -> {
+            Map<Granularity, LocalDateTime> marks = rollupRepository.lockMarks(true);
+            if (marks.isEmpty() && !rollupRepository.hasRowsBefore(startedAt)) {
+                rollupRepository.backfillMinutes(startedAt, SalesRollup.ALL_CATEGORIES);
+                log.info("Sales rollups backfilled from orders placed before {}", startedAt);
+            }
+        });
+        compact();
+    }
+
+    @Scheduled(fixedDelayString = "${sales.rollup.flush-interval-ms:10000}")
+    public void flush() {
+        Map<Key, Totals> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        }
+        try {
+            transaction.executeWithoutResult(status -> {
+                Map<Granularity, LocalDateTime> marks = rollupRepository.lockMarks(false);
+                rollupRepository.add(Granularity.MINUTE, rows(batch, Granularity.MINUTE, null));
+                // Late minutes whose hour or day was already compacted are added there as well
+                for (Granularity coarser : List.of(Granularity.HOUR, Granularity.DAY)) {
+                    LocalDateTime mark = marks.get(coarser);
+                    List<Row> late = mark != null ? rows(batch, coarser, mark) : List.of();
+                    if (!late.isEmpty()) {
+                        rollupRepository.add(coarser, late);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            add(batch);
+            log.warn("Could not write sales rollups, will retry: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${sales.rollup.compact-interval-ms:60000}", initialDelayString = "${sales.rollup.compact-interval-ms:60000}")
+    public void compact() {
+        transaction.executeWithoutResult(status -> {
+            LocalDateTime settled = LocalDateTime.now().minusNanos(compactDelayMs * 1_000_000);
+            Map<Granularity, LocalDateTime> marks = rollupRepository.lockMarks(true);
+            LocalDateTime hours = rollUp(Granularity.MINUTE, Granularity.HOUR, marks.get(Granularity.HOUR),
+                    Granularity.HOUR.truncate(settled));
+            // Days are built only from hours that are complete
+            rollUp(Granularity.HOUR, Granularity.DAY, marks.get(Granularity.DAY), Granularity.DAY.truncate(hours));
+
+            LocalDateTime expired = LocalDateTime.now().minusHours(minuteRetentionHours);
+            rollupRepository.deleteBefore(Granularity.MINUTE, expired.isBefore(hours) ? expired : hours);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public List<SalesPointDTO> series(LocalDateTime from, LocalDateTime to, Granularity granularity, Long categoryId) {
+        LocalDateTime start = granularity.truncate(from);
+        LocalDateTime end = granularity.truncate(to);
+        if (end.isBefore(to)) {
+            end = end.plus(1, granularity.getUnit());
+        }
+        if (!start.isBefore(end)) {
+            throw new RuntimeException("from must be before to");
+        }
+        if (granularity.getUnit().between(start, end) > MAX_POINTS) {
+            throw new RuntimeException("Range too long for " + granularity.sqlUnit() + " granularity (at most " + MAX_POINTS + " points)");
+        }
+
+        Map<Granularity, LocalDateTime> marks = rollupRepository.marks();
+        List<Segment> segments = new ArrayList<>();
+        LocalDateTime next = start;
+        for (Granularity source : List.of(Granularity.DAY, Granularity.HOUR)) {
+            LocalDateTime mark = marks.get(source);
+            if (source.compareTo(granularity) > 0 || mark == null || !next.isBefore(mark)) {
+                continue;
+            }
+            LocalDateTime until = mark.isBefore(end) ? mark : end;
+            segments.add(new Segment(source, next, until));
+            next = until;
+        }
+        if (next.isBefore(end)) {
+            segments.add(new Segment(Granularity.MINUTE, next, end));
+        }
+
+        Map<LocalDateTime, Row> rows = new HashMap<>();
+        for (Row row : rollupRepository.series(granularity, categoryId != null ? categoryId : SalesRollup.ALL_CATEGORIES, segments)) {
+            rows.put(row.getBucketStart(), row);
+        }
+        // Every bucket in the range, with zeros where nothing sold
+        List<SalesPointDTO> points = new ArrayList<>();
+        for (LocalDateTime bucket = start; bucket.isBefore(end); bucket = bucket.plus(1, granularity.getUnit())) {
+            Row row = rows.get(bucket);
+            points.add(SalesPointDTO.builder()
+                    .bucketStart(bucket)
+                    .orders(row != null ? row.getOrders() : 0)
+                    .revenue(row != null ? row.getRevenue() : BigDecimal.ZERO)
+                    .units(row != null ? row.getUnits() : 0)
+                    .build());
+        }
+        return points;
+    }
+
+    // Sums source rows from the target's mark (or the earliest source row) up to until and moves
+    // the mark there; returns the new mark
+    private LocalDateTime rollUp(Granularity source, Granularity target, LocalDateTime mark, LocalDateTime until) {
+        LocalDateTime from = mark;
+        if (from == null) {
+            LocalDateTime earliest = rollupRepository.earliest(source);
+            from = earliest != null ? target.truncate(earliest) : until;
+        }
+        if (!from.isBefore(until)) {
+            if (mark == null) {
+                rollupRepository.setMark(target, until);
+                return until;
+            }
+            return mark;
+        }
+        rollupRepository.rollUp(source, target, from, until);
+        rollupRepository.setMark(target, until);
+        return until;
+    }
+
+    private synchronized void add(Map<Key, Totals> totals) {
+        totals.forEach((key, value) -> pending.merge(key, value, Totals::plus));
+    }
+
+    // The batch as rows of the given granularity; with a mark, only the buckets before it
+    private static List<Row> rows(Map<Key, Totals> batch, Granularity granularity, LocalDateTime before) {
+        Map<Key, Totals> buckets = new HashMap<>();
+        batch.forEach((key, totals) -> {
+            if (before == null || key.bucketStart.isBefore(before)) {
+                buckets.merge(new Key(granularity.truncate(key.bucketStart), key.categoryId), totals, Totals::plus);
+            }
+        });
+        List<Row> rows = new ArrayList<>(buckets.size());
+        buckets.forEach((key, totals) -> rows.add(new Row(key.bucketStart, key.categoryId, totals.orders, totals.revenue, totals.units)));
+        return rows;
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class Key {
+        private final LocalDateTime bucketStart;
+        private final long categoryId;
+    }
+
+    @AllArgsConstructor
+    private static final class Totals {
+        private final long orders;
+        private final BigDecimal revenue;
+        private final long units;
+
+        Totals plus(Totals other) {
+            return new Totals(orders + other.orders, revenue.add(other.revenue), units + other.units);
+        }
+
+        Totals times(int sign) {
+            return new Totals(sign * orders, revenue.multiply(BigDecimal.valueOf(sign)), sign * units);
+        }
+    }
+}
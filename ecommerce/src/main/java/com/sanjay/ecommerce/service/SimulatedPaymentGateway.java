@@ -0,0 +1,36 @@
+package com.sanjay.ecommerce.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Stand-in provider: approves payment.simulator.success-rate of payments after
+// payment.simulator.latency-ms, the way checkout always simulated payment
+@Component
+@ConditionalOnProperty(name = "payment.gateway", havingValue = "simulator", matchIfMissing = true)
+@RequiredArgsConstructor
+public class SimulatedPaymentGateway implements PaymentGateway {
+    private final SnowflakeIdGenerator idGenerator;
+
+    @Value("${payment.simulator.success-rate:0.9}")
+    private double successRate;
+
+    @Value("${payment.simulator.latency-ms:0}")
+    private long latencyMs;
+
+    @Override
+    public Result authorize(Request request) {
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Payment authorization interrupted");
+            }
+        }
+        boolean approved = ThreadLocalRandom.current().nextDouble() < successRate;
+        return new Result(approved, idGenerator.nextCode());
+    }
+}
@@ -0,0 +1,70 @@
+package com.sanjay.ecommerce.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 64-bit ids that need no coordination: 41 bits of milliseconds since ids.epoch, 10 bits of
+// ids.node-id and a 12-bit per-millisecond sequence, so each node can hand out 4096 ids per
+// millisecond and ids from different nodes never collide as long as node ids differ. Ids grow
+// with time, which keeps them index friendly.
+//
+// The time and sequence last issued live in one AtomicLong and advance by compare-and-set, so
+// callers never block. A sequence that runs out, or a clock that steps back, borrows the next
+// millisecond instead of waiting; the clock catches up with the borrowed time on its own.
+@Component
+public class SnowflakeIdGenerator {
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // Last issued (timestamp << SEQUENCE_BITS | sequence)
+    private final AtomicLong last = new AtomicLong();
+
+    @Value("${ids.node-id:0}")
+    private long nodeId;
+
+    @Value("${ids.epoch:2024-01-01T00:00:00Z}")
+    private Instant epoch;
+
+    private long epochMillis;
+    private long nodeBits;
+
+    @PostConstruct
+    public void init() {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalStateException("ids.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        epochMillis = epoch.toEpochMilli();
+        nodeBits = nodeId << SEQUENCE_BITS;
+    }
+
+    public long nextId() {
+        while (true) {
+            long previous = last.get();
+            long previousTime = previous >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - epochMillis;
+
+            long next;
+            if (now > previousTime) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                // Same millisecond (or the clock went back): the next sequence number, which
+                // carries over into the following millisecond once the 4096 are used up
+                next = previous + 1;
+            }
+            if (last.compareAndSet(previous, next)) {
+                long time = next >>> SEQUENCE_BITS;
+                return time << (NODE_BITS + SEQUENCE_BITS) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    // Short upper-case form for ids people read out or type: order numbers, transaction ids
+    public String nextCode() {
+        return Long.toString(nextId(), 36).toUpperCase();
+    }
+}
@@ -0,0 +1,60 @@
+package com.sanjay.ecommerce.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Space-Saving summary: the heaviest items of a weighted stream in a fixed number of counters.
+// An item that is not counted yet takes over the smallest counter and inherits its count, so
+// every count is an upper bound, too high by at most its error (never more than total weight /
+// capacity), and every item heavier than that bound is sure to be kept. Not thread-safe.
+final class SpaceSaving {
+    private final int capacity;
+    private final Map<Long, Counter> counters = new HashMap<>();
+    // Smallest count first; the first entry is the one to replace
+    private final TreeSet<Counter> byCount = new TreeSet<>(
+            Comparator.comparingLong((Counter counter) -> counter.count).thenComparingLong(counter -> counter.item));
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void offer(long item, long weight) {
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            byCount.remove(counter);
+            counter.count += weight;
+            byCount.add(counter);
+            return;
+        }
+        if (counters.size() < capacity) {
+            counter = new Counter(item, weight, 0);
+        } else {
+            Counter smallest = byCount.pollFirst();
+            counters.remove(smallest.item);
+            counter = new Counter(item, smallest.count + weight, smallest.count);
+        }
+        counters.put(item, counter);
+        byCount.add(counter);
+    }
+
+    List<Counter> counters() {
+        return new ArrayList<>(counters.values());
+    }
+
+    static final class Counter {
+        final long item;
+        long count;
+        // How much of count may belong to items counted here before
+        final long error;
+
+        Counter(long item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.sanjay.ecommerce.service;
+
+import com.sanjay.ecommerce.model.Product;
+import com.sanjay.ecommerce.repository.ProductRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// In-memory stock gate in front of products.stock. Each product keeps a sellable count (stock
+// minus units held for shoppers in checkout), so cart and checkout checks contend on a monitor
+// instead of a row lock. A hold lasts inventory.hold-ttl-ms unless its order commits first; the
+// database's conditional decrement stays the final guard, and reconciliation re-derives the
+// counts from products.stock to absorb anything that changed behind the gate's back.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockReservations {
+    private static final int USER_LOCK_STRIPES = 64;
+
+    private final ProductRepository productRepository;
+
+    private final Map<Long, Sku> skus = new ConcurrentHashMap<>();
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+    // Serializes hold changes per user (two tabs checking out at once)
+    private final Object[] userLocks = Stream.generate(Object::new).limit(USER_LOCK_STRIPES).toArray();
+
+    @Value("${inventory.hold-ttl-ms:600000}")
+    private long holdTtlMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        reconcile();
+    }
+
+    // Units a shopper could still take, or 0 for an unknown product
+    public int available(Long productId) {
+        Sku sku = sku(productId);
+        if (sku == null) {
+            return 0;
+        }
+        synchronized (sku) {
+            return sku.available;
+        }
+    }
+
+    // Units the user could have in total: what is sellable plus what their own hold already has,
+    // so a shopper in checkout can still edit their cart down to (or up from) what they hold
+    public int available(Long productId, Long userId) {
+        synchronized (userLock(userId)) {
+            Hold hold = holds.get(userId);
+            return available(productId) + (hold != null ? hold.quantities.getOrDefault(productId, 0) : 0);
+        }
+    }
+
+    // Holds exactly these quantities for the user, replacing any earlier hold. Only the difference
+    // to the earlier hold is taken or returned, so re-holding an unchanged cart is free.
+    public Hold hold(Long userId, Map<Long, Integer> quantities) {
+        synchronized (userLock(userId)) {
+            Hold previous = holds.get(userId);
+            if (previous != null && previous.committing) {
+                throw new RuntimeException("Checkout already in progress");
+            }
+            TreeMap<Long, Integer> deltas = new TreeMap<>();
+            quantities.forEach((productId, quantity) -> deltas.merge(productId, quantity, Integer::sum));
+            if (previous != null) {
+                previous.quantities.forEach((productId, quantity) -> deltas.merge(productId, -quantity, Integer::sum));
+            }
+
+            // Take increases in ascending id order, giving back everything taken if one product falls short
+            List<Map.Entry<Long, Integer>> taken = new ArrayList<>();
+            for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+                if (delta.getValue() <= 0) {
+                    continue;
+                }
+                Sku sku = sku(delta.getKey());
+                if (sku == null || !sku.take(delta.getValue())) {
+                    taken.forEach(undo -> skus.get(undo.getKey()).take(-undo.getValue()));
+                    throw new RuntimeException("Insufficient stock for product: " + productName(delta.getKey()));
+                }
+                taken.add(delta);
+            }
+            // Decreases only once the whole hold is secured
+            deltas.forEach((productId, delta) -> {
+                if (delta < 0) {
+                    returnUnits(Map.of(productId, -delta));
+                }
+            });
+
+            Hold hold = new Hold(Map.copyOf(quantities), System.currentTimeMillis() + holdTtlMs);
+            holds.put(userId, hold);
+            return hold;
+        }
+    }
+
+    public void release(Long userId) {
+        synchronized (userLock(userId)) {
+            Hold hold = holds.get(userId);
+            if (hold != null && !hold.committing && holds.remove(userId, hold)) {
+                returnUnits(hold.quantities);
+            }
+        }
+    }
+
+    // Holds the order's quantities (reusing the checkout hold when it matches) and ties the hold
+    // to the current transaction: on commit its units are gone for good, since products.stock
+    // dropped by the same amount; on rollback a hold made just for this order is returned.
+    public void holdForOrder(Long userId, Map<Long, Integer> quantities) {
+        boolean existing = holds.containsKey(userId);
+        Hold hold = hold(userId, quantities);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                synchronized (userLock(userId)) {
+                    // From here the reaper and later holds leave this one alone
+                    hold.committing = true;
+                    hold.quantities.keySet().forEach(productId -> skus.get(productId).beginCommit());
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                boolean committed = status == STATUS_COMMITTED;
+                synchronized (userLock(userId)) {
+                    if (hold.committing) {
+                        hold.quantities.forEach((productId, quantity) -> skus.get(productId).endCommit(committed ? quantity : 0));
+                        hold.committing = false;
+                    }
+                    if (committed) {
+                        holds.remove(userId, hold);
+                    } else if (!existing) {
+                        release(userId);
+                    }
+                }
+            }
+
+            @Override
+            public int getOrder() {
+                // Settle the counts before after-commit listeners look at the new stock
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+        });
+    }
+
+    // Stock the current transaction puts back into products.stock (a cancelled order) becomes
+    // sellable when it commits. Marked as committing like an order, so reconciliation leaves the
+    // products alone while the database already has the units and the counts do not yet.
+    public void restock(Map<Long, Integer> quantities) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private final Map<Sku, Integer> restocked = new HashMap<>();
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                quantities.forEach((productId, quantity) -> {
+                    Sku sku = skus.get(productId);
+                    if (sku != null) {
+                        sku.beginCommit();
+                        restocked.put(sku, quantity);
+                    }
+                });
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                boolean committed = status == STATUS_COMMITTED;
+                restocked.forEach((sku, quantity) -> sku.endRestock(committed ? quantity : 0));
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reaper-interval-ms:5000}")
+    public void reapExpired() {
+        long now = System.currentTimeMillis();
+        int reaped = 0;
+        for (Map.Entry<Long, Hold> entry : holds.entrySet()) {
+            if (entry.getValue().expiresAt > now) {
+                continue;
+            }
+            synchronized (userLock(entry.getKey())) {
+                Hold hold = entry.getValue();
+                if (!hold.committing && holds.remove(entry.getKey(), hold)) {
+                    returnUnits(hold.quantities);
+                    reaped++;
+                }
+            }
+        }
+        if (reaped > 0) {
+            log.debug("Returned {} expired stock holds", reaped);
+        }
+    }
+
+    // Sellable = products.stock - units held. A product whose order was mid-commit while stock was
+    // read is skipped, since the read may or may not include that order; the next round gets it.
+    @Scheduled(fixedDelayString = "${inventory.reconcile-interval-ms:60000}", initialDelayString = "${inventory.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        Map<Long, Long> seen = new HashMap<>();
+        skus.forEach((productId, sku) -> seen.put(productId, sku.settledCommits()));
+
+        Set<Long> present = new HashSet<>();
+        int corrected = 0;
+        for (Object[] row : productRepository.findAllStockLevels()) {
+            Long productId = (Long) row[0];
+            int stock = (Integer) row[1];
+            present.add(productId);
+            Sku sku = skus.computeIfAbsent(productId, id -> new Sku(stock));
+            Long before = seen.get(productId);
+            if (before != null && sku.reconcile(stock, before)) {
+                corrected++;
+            }
+        }
+        skus.keySet().removeIf(productId -> !present.contains(productId) && seen.containsKey(productId));
+        if (corrected > 0) {
+            log.info("Stock reconciliation corrected {} products", corrected);
+        }
+    }
+
+    // Admin edits and imports change products.stock directly; re-read what they touched
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!event.isStructural()) {
+            // Stock changes from orders are already accounted for by their holds
+            return;
+        }
+        if (event.getProductId() == null) {
+            reconcile();
+            return;
+        }
+        Sku sku = skus.get(event.getProductId());
+        if (sku == null) {
+            return;
+        }
+        long before = sku.settledCommits();
+        Optional<Integer> stock = productRepository.findStockById(event.getProductId());
+        if (stock.isEmpty()) {
+            skus.remove(event.getProductId());
+        } else {
+            sku.reconcile(stock.get(), before);
+        }
+    }
+
+    private Sku sku(Long productId) {
+        Sku sku = skus.get(productId);
+        if (sku != null) {
+            return sku;
+        }
+        // Products created after the last reconciliation are loaded on first use
+        Optional<Integer> stock = productRepository.findStockById(productId);
+        return stock.map(value -> skus.computeIfAbsent(productId, id -> new Sku(value))).orElse(null);
+    }
+
+    private Object userLock(Long userId) {
+        return userLocks[Math.floorMod(Long.hashCode(userId), USER_LOCK_STRIPES)];
+    }
+
+    private void returnUnits(Map<Long, Integer> quantities) {
+        quantities.forEach((productId, quantity) -> {
+            Sku sku = skus.get(productId);
+            if (sku != null) {
+                sku.take(-quantity);
+            }
+        });
+    }
+
+    private String productName(Long productId) {
+        return productRepository.findById(productId)
+                .map(Product::getName)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+    }
+
+    @Getter
+    public static class Hold {
+        private final Map<Long, Integer> quantities;
+        private final long expiresAt;
+        private volatile boolean committing;
+
+        private Hold(Map<Long, Integer> quantities, long expiresAt) {
+            this.quantities = quantities;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // Counters for one product, guarded by its own monitor
+    private static final class Sku {
+        private int available;
+        private int held;
+        // Orders between beforeCommit and afterCompletion, and how many have settled so far
+        private int committing;
+        private long settled;
+
+        private Sku(int stock) {
+            this.available = stock;
+        }
+
+        // Negative quantities return units
+        synchronized boolean take(int quantity) {
+            if (quantity > 0 && available < quantity) {
+                return false;
+            }
+            available -= quantity;
+            held += quantity;
+            return true;
+        }
+
+        synchronized void beginCommit() {
+            committing++;
+        }
+
+        // Committed units leave the hold without coming back: products.stock already dropped
+        synchronized void endCommit(int committedQuantity) {
+            committing--;
+            held -= committedQuantity;
+            settled++;
+        }
+
+        synchronized void endRestock(int restoredQuantity) {
+            committing--;
+            available += restoredQuantity;
+            settled++;
+        }
+
+        synchronized long settledCommits() {
+            return committing > 0 ? -1 : settled;
+        }
+
+        synchronized boolean reconcile(int stock, long settledBefore) {
+            if (settledBefore < 0 || committing > 0 || settled != settledBefore) {
+                return false;
+            }
+            int target = Math.max(0, stock - held);
+            if (target == available) {
+                return false;
+            }
+            available = target;
+            return true;
+        }
+    }
+}
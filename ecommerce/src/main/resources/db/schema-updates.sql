@@ -0,0 +1,31 @@
+-- Runs after Hibernate's ddl-auto=update, which creates missing tables and columns but never
+-- changes an existing check constraint. Every statement must be safe to repeat on each startup.
+
+-- Order status PENDING (payment not yet authorized)
+ALTER TABLE orders DROP CONSTRAINT IF EXISTS orders_status_check;
+ALTER TABLE orders ADD CONSTRAINT orders_status_check
+    CHECK (status IN ('PENDING', 'PROCESSING', 'SHIPPED', 'DELIVERED', 'CANCELLED'));
+
+-- Sequence ids for orders, order_items, payments and cart_items, which used to be IDENTITY
+-- columns: start each sequence past the ids already handed out. Hibernate's pooled optimizer
+-- takes a value as the top of a block of 50, hence the margin.
+SELECT setval('orders_seq', GREATEST((SELECT last_value FROM orders_seq), (SELECT COALESCE(MAX(id), 0) + 50 FROM orders)));
+SELECT setval('order_items_seq', GREATEST((SELECT last_value FROM order_items_seq), (SELECT COALESCE(MAX(id), 0) + 50 FROM order_items)));
+SELECT setval('payments_seq', GREATEST((SELECT last_value FROM payments_seq), (SELECT COALESCE(MAX(id), 0) + 50 FROM payments)));
+SELECT setval('cart_items_seq', GREATEST((SELECT last_value FROM cart_items_seq), (SELECT COALESCE(MAX(id), 0) + 50 FROM cart_items)));
+
+-- Lowest rated reviews first, newest first among equals: the keys of ReviewSort.LOWEST, which
+-- JPA index definitions cannot express. idx_reviews_product_rating became idx_reviews_product_rating_date.
+CREATE INDEX IF NOT EXISTS idx_reviews_product_low ON reviews (product_id, (-rating), created_at, id);
+DROP INDEX IF EXISTS idx_reviews_product_rating;
+
+-- Products used to be inserted with null ratings; rating sorts and keysets read the plain
+-- columns so that idx_products_rating can serve them
+UPDATE products SET average_rating = 0 WHERE average_rating IS NULL;
+UPDATE products SET review_count = 0 WHERE review_count IS NULL;
+ALTER TABLE products ALTER COLUMN average_rating SET DEFAULT 0, ALTER COLUMN average_rating SET NOT NULL;
+ALTER TABLE products ALTER COLUMN review_count SET DEFAULT 0, ALTER COLUMN review_count SET NOT NULL;
+
+-- Compaction marks for the hour and day sales rollups, created empty
+INSERT INTO sales_rollup_marks (granularity, compacted_until) VALUES ('HOUR', NULL), ('DAY', NULL)
+    ON CONFLICT (granularity) DO NOTHING;
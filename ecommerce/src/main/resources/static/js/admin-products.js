@@ -43,7 +43,7 @@ const loadProducts = async () => {
         tbody.innerHTML = products.map(product => `
             <tr>
                 <td>
-                    <img src="${product.imageUrl || 'https://via.placeholder.com/50'}"
+                    <img src="${thumbnailUrl(product.imageUrl, 160) || 'https://via.placeholder.com/50'}"
                          alt="${product.name}" class="product-thumb">
                 </td>
                 <td>${product.name}</td>
@@ -89,13 +89,15 @@ const setupProductForm = () => {
         const productId = document.getElementById('productId').value;
 
         try {
-            if (productId) {
-                await api.admin.updateProduct(productId, data);
-                showToast('Product updated successfully', 'success');
-            } else {
-                await api.admin.createProduct(data);
-                showToast('Product created successfully', 'success');
+            const saved = productId
+                ? await api.admin.updateProduct(productId, data)
+                : await api.admin.createProduct(data);
+
+            const imageFile = document.getElementById('prodImageFile').files[0];
+            if (imageFile) {
+                await api.admin.uploadProductImage(saved.id, imageFile);
             }
+            showToast(productId ? 'Product updated successfully' : 'Product created successfully', 'success');
 
             closeModal('productModal');
             loadProducts();
@@ -10,6 +10,8 @@ document.addEventListener('DOMContentLoaded', () => {
     loadAnalytics();
     loadRecentOrders();
 
+    document.getElementById('topProductsWindow').addEventListener('change', (e) => loadTopProducts(e.target.value));
+
     document.getElementById('adminLogout').addEventListener('click', (e) => {
         e.preventDefault();
         if (confirm('Are you sure you want to logout?')) {
@@ -38,6 +40,19 @@ const loadAnalytics = async () => {
     }
 };
 
+// A window reads the sliding best sellers; all time comes with the analytics
+const loadTopProducts = async (window) => {
+    try {
+        const topProducts = window
+            ? await api.admin.getTopProducts(window)
+            : (await api.admin.getAnalytics()).topProducts;
+        displayTopProducts(topProducts || []);
+    } catch (error) {
+        console.error('Error loading top products:', error);
+        showToast('Failed to load top products', 'error');
+    }
+};
+
 const displayTopProducts = (topProducts) => {
     const tbody = document.getElementById('topProductsTable');
 
@@ -69,7 +84,7 @@ const loadRecentOrders = async () => {
         container.innerHTML = recentOrders.map(order => `
             <div class="order-card-admin">
                 <div class="order-info">
-                    <strong>Order #${order.id}</strong>
+                    <strong>Order #${order.orderNumber || order.id}</strong>
                     <span>${formatDate(order.orderDate)}</span>
                 </div>
                 <div class="order-user">${order.user.fullName}</div>
@@ -85,6 +100,7 @@ const loadRecentOrders = async () => {
 
 const getStatusColor = (status) => {
     const colors = {
+        PENDING: 'warning',
         PROCESSING: 'info',
         SHIPPED: 'warning',
         DELIVERED: 'success',
@@ -6,8 +6,9 @@ const api = {
     // Make API request
     request: async (endpoint, options = {}) => {
         const token = api.getToken();
+        // Multipart bodies need the browser-generated boundary, so no JSON content type for them
         const headers = {
-            'Content-Type': 'application/json',
+            ...(options.body instanceof FormData ? {} : { 'Content-Type': 'application/json' }),
             ...options.headers
         };
 
@@ -68,6 +69,9 @@ const api = {
     },
     getProduct: (id) => api.get(API_ENDPOINTS.PRODUCT_DETAIL(id)),
     searchProducts: (query) => api.get(`${API_ENDPOINTS.PRODUCT_SEARCH}?q=${query}`),
+    suggestProducts: (prefix) => api.get(`${API_ENDPOINTS.PRODUCT_SUGGEST}?prefix=${encodeURIComponent(prefix)}`),
+    getTopRatedProducts: (limit = 8) => api.get(`${API_ENDPOINTS.PRODUCTS_TOP_RATED}?limit=${limit}`),
+    getLatestProducts: (limit = 8) => api.get(`${API_ENDPOINTS.PRODUCTS_LATEST}?limit=${limit}`),
     getProductsByCategory: (categoryId) => api.get(API_ENDPOINTS.PRODUCTS_BY_CATEGORY(categoryId)),
 
     // Category APIs
@@ -79,6 +83,7 @@ const api = {
     updateCartItem: (itemId, quantity) => api.put(API_ENDPOINTS.CART_UPDATE(itemId), { quantity }),
     removeFromCart: (itemId) => api.delete(API_ENDPOINTS.CART_REMOVE(itemId)),
     clearCart: () => api.delete(API_ENDPOINTS.CART_CLEAR),
+    holdCart: () => api.post(API_ENDPOINTS.CART_HOLD),
 
     // Wishlist APIs
     getWishlist: () => api.get(API_ENDPOINTS.WISHLIST),
@@ -87,9 +92,43 @@ const api = {
     moveToCart: (productId) => api.post(API_ENDPOINTS.WISHLIST_MOVE_TO_CART(productId)),
 
     // Order APIs
-    getOrders: () => api.get(API_ENDPOINTS.ORDERS),
+    // One page of the order history, newest first; pass the previous page's nextCursor for the next
+    getOrders: (cursor) => api.get(`${API_ENDPOINTS.ORDERS}${cursor ? '?cursor=' + encodeURIComponent(cursor) : ''}`),
     getOrder: (id) => api.get(API_ENDPOINTS.ORDER_DETAIL(id)),
-    checkout: (addressId, paymentMethod) => api.post(API_ENDPOINTS.CHECKOUT, { addressId, paymentMethod }),
+    // The same idempotency key on a retry returns the first attempt's order instead of placing another
+    checkout: (addressId, paymentMethod, idempotencyKey) => api.request(API_ENDPOINTS.CHECKOUT, {
+        method: 'POST',
+        headers: { 'Idempotency-Key': idempotencyKey },
+        body: JSON.stringify({ addressId, paymentMethod })
+    }),
+    // Calls onStatus for every status the order moves through until onStatus returns true or
+    // the stream ends. Read with fetch since EventSource cannot send the Authorization header.
+    watchOrder: async (id, onStatus) => {
+        const response = await fetch(`${API_BASE_URL}${API_ENDPOINTS.ORDER_EVENTS(id)}`, {
+            headers: { 'Authorization': `Bearer ${api.getToken()}`, 'Accept': 'text/event-stream' }
+        });
+        if (!response.ok) throw new Error('Could not follow order status');
+
+        const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+        let buffer = '';
+        while (true) {
+            const { value, done } = await reader.read();
+            if (done) return;
+            buffer += value;
+            const events = buffer.split('\n\n');
+            buffer = events.pop();
+            for (const event of events) {
+                const data = event.split('\n')
+                    .filter(line => line.startsWith('data:'))
+                    .map(line => line.slice(5))
+                    .join('\n');
+                if (data && onStatus(JSON.parse(data))) {
+                    reader.cancel();
+                    return;
+                }
+            }
+        }
+    },
 
     // User APIs
     getProfile: () => api.get(API_ENDPOINTS.PROFILE),
@@ -100,7 +139,12 @@ const api = {
     deleteAddress: (id) => api.delete(API_ENDPOINTS.ADDRESS_DETAIL(id)),
 
     // Review APIs
-    getProductReviews: (productId) => api.get(API_ENDPOINTS.PRODUCT_REVIEWS(productId)),
+    // One page of reviews; params may hold sort (recent, highest, lowest), stars and the previous page's cursor
+    getProductReviews: (productId, params = {}) => {
+        const query = new URLSearchParams(params).toString();
+        return api.get(`${API_ENDPOINTS.PRODUCT_REVIEWS(productId)}${query ? '?' + query : ''}`);
+    },
+    getRatingSummary: (productId) => api.get(API_ENDPOINTS.PRODUCT_RATING_SUMMARY(productId)),
     addReview: (productId, rating, comment) => api.post(API_ENDPOINTS.REVIEWS, { productId, rating, comment }),
     updateReview: (id, rating, comment) => api.put(API_ENDPOINTS.REVIEW_DETAIL(id), { rating, comment }),
     deleteReview: (id) => api.delete(API_ENDPOINTS.REVIEW_DETAIL(id)),
@@ -111,8 +155,14 @@ const api = {
         createProduct: (data) => api.post(API_ENDPOINTS.ADMIN_PRODUCTS, data),
         updateProduct: (id, data) => api.put(API_ENDPOINTS.ADMIN_PRODUCT_DETAIL(id), data),
         deleteProduct: (id) => api.delete(API_ENDPOINTS.ADMIN_PRODUCT_DETAIL(id)),
+        uploadProductImage: (id, file) => {
+            const form = new FormData();
+            form.append('file', file);
+            return api.request(API_ENDPOINTS.ADMIN_PRODUCT_IMAGE(id), { method: 'POST', body: form });
+        },
         getOrders: () => api.get(API_ENDPOINTS.ADMIN_ORDERS),
         updateOrderStatus: (id, status) => api.put(API_ENDPOINTS.ADMIN_ORDER_STATUS(id), { status }),
-        getAnalytics: () => api.get(API_ENDPOINTS.ADMIN_ANALYTICS)
+        getAnalytics: () => api.get(API_ENDPOINTS.ADMIN_ANALYTICS),
+        getTopProducts: (window) => api.get(API_ENDPOINTS.ADMIN_TOP_PRODUCTS(window))
     }
 };
\ No newline at end of file
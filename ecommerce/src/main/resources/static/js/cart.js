@@ -49,7 +49,7 @@ const displayCart = () => {
     container.innerHTML = cartData.items.map(item => `
         <div class="cart-item" data-item-id="${item.id}">
             <div class="cart-item-image">
-                <img src="${item.product.imageUrl || 'https://via.placeholder.com/120x120?text=No+Image'}"
+                <img src="${thumbnailUrl(item.product.imageUrl, 160) || 'https://via.placeholder.com/120x120?text=No+Image'}"
                      alt="${item.product.name}"
                      onerror="this.src='https://via.placeholder.com/120x120?text=No+Image'">
             </div>
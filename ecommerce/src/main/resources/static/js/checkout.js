@@ -1,15 +1,28 @@
 let cartData = null;
 let addresses = [];
 let selectedAddressId = null;
+// One key per order attempt, kept when the request fails in transit so the retry cannot order twice
+let checkoutKey = null;
 
 document.addEventListener('DOMContentLoaded', async () => {
     if (!auth.requireAuth()) return;
 
     await loadCart();
+    await holdStock();
     await loadAddresses();
     setupCheckout();
 });
 
+// Sets the cart's stock aside while the shopper fills in the form
+const holdStock = async () => {
+    if (!cartData || !cartData.items || cartData.items.length === 0) return;
+    try {
+        await api.holdCart();
+    } catch (error) {
+        showToast(error.message || 'Some items are no longer available', 'warning');
+    }
+};
+
 const loadCart = async () => {
     try {
         cartData = await api.getCart();
@@ -60,7 +73,7 @@ const displayOrderItems = () => {
 
     container.innerHTML = cartData.items.map(item => `
         <div class="order-item">
-            <img src="${item.product.imageUrl || 'https://via.placeholder.com/60x60'}" alt="${item.product.name}">
+            <img src="${thumbnailUrl(item.product.imageUrl, 160) || 'https://via.placeholder.com/60x60'}" alt="${item.product.name}">
             <div class="item-details">
                 <div class="item-name">${item.product.name}</div>
                 <div class="item-qty">Qty: ${item.quantity}</div>
@@ -95,14 +108,31 @@ const setupCheckout = () => {
             return;
         }
 
+        const button = document.getElementById('placeOrderBtn');
         try {
-            const order = await api.checkout(selectedAddress.value, selectedPayment.value);
-            showToast('Order placed successfully!', 'success');
-            setTimeout(() => {
-                window.location.href = `order-success.html?orderId=${order.id}`;
-            }, 1500);
+            button.disabled = true;
+            checkoutKey = checkoutKey || crypto.randomUUID();
+            const order = await api.checkout(selectedAddress.value, selectedPayment.value, checkoutKey);
+            checkoutKey = null;
+            showToast('Order placed, processing payment...', 'info');
+            await api.watchOrder(order.id, (event) => {
+                if (event.status === 'PENDING') return false;
+                if (event.status === 'CANCELLED') {
+                    showToast('Payment failed, your order was cancelled', 'error');
+                    button.disabled = false;
+                } else {
+                    showToast('Order placed successfully!', 'success');
+                    setTimeout(() => {
+                        window.location.href = `order-success.html?orderId=${order.id}`;
+                    }, 1500);
+                }
+                return true;
+            });
         } catch (error) {
+            // fetch rejects with a TypeError when no response arrived; anything else was answered
+            if (!(error instanceof TypeError)) checkoutKey = null;
             showToast(error.message || 'Failed to place order', 'error');
+            button.disabled = false;
         }
     });
 };
\ No newline at end of file
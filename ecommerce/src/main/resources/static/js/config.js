@@ -11,6 +11,9 @@ const API_ENDPOINTS = {
     PRODUCTS: '/products',
     PRODUCT_DETAIL: (id) => `/products/${id}`,
     PRODUCT_SEARCH: '/products/search',
+    PRODUCT_SUGGEST: '/products/suggest',
+    PRODUCTS_TOP_RATED: '/products/top-rated',
+    PRODUCTS_LATEST: '/products/latest',
     PRODUCTS_BY_CATEGORY: (id) => `/products/category/${id}`,
 
     // Categories
@@ -22,6 +25,7 @@ const API_ENDPOINTS = {
     CART_UPDATE: (id) => `/cart/update/${id}`,
     CART_REMOVE: (id) => `/cart/remove/${id}`,
     CART_CLEAR: '/cart/clear',
+    CART_HOLD: '/cart/hold',
 
     // Wishlist
     WISHLIST: '/wishlist',
@@ -33,6 +37,7 @@ const API_ENDPOINTS = {
     ORDERS: '/orders',
     ORDER_DETAIL: (id) => `/orders/${id}`,
     CHECKOUT: '/orders/checkout',
+    ORDER_EVENTS: (id) => `/orders/${id}/events`,
 
     // User
     PROFILE: '/users/profile',
@@ -42,14 +47,17 @@ const API_ENDPOINTS = {
     // Reviews
     REVIEWS: '/reviews',
     PRODUCT_REVIEWS: (id) => `/reviews/product/${id}`,
+    PRODUCT_RATING_SUMMARY: (id) => `/reviews/product/${id}/summary`,
     REVIEW_DETAIL: (id) => `/reviews/${id}`,
 
     // Admin
     ADMIN_PRODUCTS: '/admin/products',
     ADMIN_PRODUCT_DETAIL: (id) => `/admin/products/${id}`,
+    ADMIN_PRODUCT_IMAGE: (id) => `/admin/products/${id}/image`,
     ADMIN_ORDERS: '/admin/orders',
     ADMIN_ORDER_STATUS: (id) => `/admin/orders/${id}/status`,
-    ADMIN_ANALYTICS: '/admin/analytics'
+    ADMIN_ANALYTICS: '/admin/analytics',
+    ADMIN_TOP_PRODUCTS: (window) => `/admin/analytics/top-products?window=${window}`
 };
 
 // Storage Keys
@@ -65,8 +65,7 @@ const loadFeaturedProducts = async () => {
     setLoading(container, true);
 
     try {
-        const products = await api.getProducts({ sortBy: 'newest' });
-        const featured = products.slice(0, 8);
+        const featured = await api.getLatestProducts(8);
 
         if (featured.length === 0) {
             setEmptyState(container, 'No products available', 'fa-box-open');
@@ -88,8 +87,8 @@ const loadTopRatedProducts = async () => {
     setLoading(container, true);
 
     try {
-        const products = await api.getProducts({ sortBy: 'rating' });
-        const topRated = products.filter(p => p.averageRating > 0).slice(0, 8);
+        const products = await api.getTopRatedProducts(8);
+        const topRated = products.filter(p => p.averageRating > 0);
 
         if (topRated.length === 0) {
             setEmptyState(container, 'No rated products yet', 'fa-star');
@@ -105,7 +104,7 @@ const loadTopRatedProducts = async () => {
 
 // Create product card HTML
 const createProductCard = (product) => {
-    const imageUrl = product.imageUrl || 'https://via.placeholder.com/300x300?text=No+Image';
+    const imageUrl = thumbnailUrl(product.imageUrl, 320) || 'https://via.placeholder.com/300x300?text=No+Image';
     const inStock = product.stock > 0;
 
     return `
@@ -119,7 +118,7 @@ const createProductCard = (product) => {
                 </div>
             </div>
             <div class="product-info">
-                <div class="product-category">${product.category?.name || 'Uncategorized'}</div>
+                <div class="product-category">${product.categoryName || 'Uncategorized'}</div>
                 <h3 class="product-name">${product.name}</h3>
                 <div class="product-rating">
                     <div class="stars">${generateStars(product.averageRating)}</div>
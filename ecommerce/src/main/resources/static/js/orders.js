@@ -11,22 +11,47 @@ const loadOrders = async () => {
     setLoading(container, true);
 
     try {
-        const orders = await api.getOrders();
+        const page = await api.getOrders();
 
-        if (orders.length === 0) {
+        if (page.items.length === 0) {
             setEmptyState(container, 'No orders yet', 'fa-shopping-bag');
             return;
         }
 
-        container.innerHTML = orders.map(order => createOrderCard(order)).join('');
+        container.innerHTML = page.items.map(order => createOrderCard(order)).join('');
+        renderLoadMore(container, page);
     } catch (error) {
         console.error('Error loading orders:', error);
         showToast('Failed to load orders', 'error');
     }
 };
 
+// Older orders are fetched a page at a time from where the last page ended
+const renderLoadMore = (container, page) => {
+    if (!page.hasMore) return;
+    const wrapper = document.createElement('div');
+    wrapper.className = 'text-center';
+    wrapper.innerHTML = '<button class="btn btn-secondary">Load more</button>';
+    const button = wrapper.querySelector('button');
+    button.addEventListener('click', async () => {
+        button.disabled = true;
+        try {
+            const next = await api.getOrders(page.nextCursor);
+            wrapper.remove();
+            container.insertAdjacentHTML('beforeend', next.items.map(order => createOrderCard(order)).join(''));
+            renderLoadMore(container, next);
+        } catch (error) {
+            console.error('Error loading orders:', error);
+            showToast('Failed to load orders', 'error');
+            button.disabled = false;
+        }
+    });
+    container.appendChild(wrapper);
+};
+
 const createOrderCard = (order) => {
     const statusColors = {
+        PENDING: 'warning',
         PROCESSING: 'info',
         SHIPPED: 'warning',
         DELIVERED: 'success',
@@ -37,7 +62,7 @@ const createOrderCard = (order) => {
         <div class="order-card">
             <div class="order-header">
                 <div>
-                    <h3>Order #${order.id}</h3>
+                    <h3>Order #${order.orderNumber || order.id}</h3>
                     <p class="order-date">${formatDate(order.orderDate)}</p>
                 </div>
                 <span class="badge badge-${statusColors[order.status]}">${order.status}</span>
@@ -46,10 +71,10 @@ const createOrderCard = (order) => {
             <div class="order-items">
                 ${order.items.slice(0, 3).map(item => `
                     <div class="order-item">
-                        <img src="${item.product.imageUrl || 'https://via.placeholder.com/60'}"
-                             alt="${item.product.name}">
+                        <img src="${thumbnailUrl(item.productImageUrl, 160) || 'https://via.placeholder.com/60'}"
+                             alt="${item.productName}">
                         <div>
-                            <div class="item-name">${item.product.name}</div>
+                            <div class="item-name">${item.productName}</div>
                             <div class="item-qty">Qty: ${item.quantity} × ${formatCurrency(item.price)}</div>
                         </div>
                     </div>
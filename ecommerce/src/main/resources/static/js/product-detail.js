@@ -21,6 +21,7 @@ document.addEventListener('DOMContentLoaded', () => {
 
     setupRatingInput();
     setupReviewForm();
+    setupReviewFilters(productId);
 });
 
 const loadProduct = async (productId) => {
@@ -101,7 +102,7 @@ const displayProduct = () => {
                     <div class="spec-list">
                         <div class="spec-item">
                             <span class="spec-label">Category</span>
-                            <span class="spec-value">${currentProduct.category?.name || 'N/A'}</span>
+                            <span class="spec-value">${currentProduct.categoryName || 'N/A'}</span>
                         </div>
                         <div class="spec-item">
                             <span class="spec-label">Stock</span>
@@ -154,34 +155,110 @@ const addProductToWishlist = async () => {
 };
 
 const updateBreadcrumb = () => {
-    document.getElementById('breadcrumbCategory').textContent = currentProduct.category?.name || 'Category';
+    document.getElementById('breadcrumbCategory').textContent = currentProduct.categoryName || 'Category';
     document.getElementById('breadcrumbProduct').textContent = currentProduct.name;
 };
 
 // Reviews
-const loadReviews = async (productId) => {
+// Sort and star filter as chosen above the list
+const reviewParams = () => {
+    const params = { sort: document.getElementById('reviewSort').value };
+    const stars = document.getElementById('reviewStars').value;
+    if (stars) params.stars = stars;
+    return params;
+};
+
+const setupReviewFilters = (productId) => {
+    ['reviewSort', 'reviewStars'].forEach(id => {
+        document.getElementById(id).addEventListener('change', () => loadReviews(productId, false));
+    });
+};
+
+const loadReviews = async (productId, withSummary = true) => {
     const container = document.getElementById('reviewsContainer');
     setLoading(container, true);
+    if (withSummary) loadRatingSummary(productId);
 
     try {
-        const reviews = await api.getProductReviews(productId);
+        const page = await api.getProductReviews(productId, reviewParams());
 
-        if (reviews.length === 0) {
-            container.innerHTML = '<p class="text-center">No reviews yet. Be the first to review!</p>';
+        if (page.items.length === 0) {
+            container.innerHTML = reviewParams().stars
+                ? '<p class="text-center">No reviews with this rating.</p>'
+                : '<p class="text-center">No reviews yet. Be the first to review!</p>';
             return;
         }
 
-        container.innerHTML = reviews.map(review => createReviewCard(review)).join('');
+        container.innerHTML = page.items.map(review => createReviewCard(review)).join('');
+        renderMoreReviews(container, productId, page);
     } catch (error) {
         console.error('Error loading reviews:', error);
         container.innerHTML = '<p class="text-center">Failed to load reviews</p>';
     }
 };
 
+// Further reviews are fetched a page at a time from where the last page ended
+const renderMoreReviews = (container, productId, page) => {
+    if (!page.hasMore) return;
+    const wrapper = document.createElement('div');
+    wrapper.className = 'text-center';
+    wrapper.innerHTML = '<button class="btn btn-secondary">Load more</button>';
+    const button = wrapper.querySelector('button');
+    button.addEventListener('click', async () => {
+        button.disabled = true;
+        try {
+            const next = await api.getProductReviews(productId, { ...reviewParams(), cursor: page.nextCursor });
+            wrapper.remove();
+            container.insertAdjacentHTML('beforeend', next.items.map(review => createReviewCard(review)).join(''));
+            renderMoreReviews(container, productId, next);
+        } catch (error) {
+            console.error('Error loading reviews:', error);
+            showToast('Failed to load reviews', 'error');
+            button.disabled = false;
+        }
+    });
+    container.appendChild(wrapper);
+};
+
+// Bars for 5 down to 1 stars, each as a share of all reviews
+const loadRatingSummary = async (productId) => {
+    const container = document.getElementById('ratingSummary');
+
+    try {
+        const summary = await api.getRatingSummary(productId);
+        if (summary.reviewCount === 0) {
+            container.innerHTML = '';
+            return;
+        }
+
+        container.innerHTML = `
+            <div class="rating-summary-score">
+                <div class="rating-summary-average">${summary.averageRating.toFixed(1)}</div>
+                <div class="review-rating">${generateStars(Math.round(summary.averageRating * 2) / 2)}</div>
+                <div class="review-date">${summary.reviewCount} reviews</div>
+            </div>
+            <div class="rating-summary-bars">
+                ${[5, 4, 3, 2, 1].map(stars => `
+                    <div class="rating-bar">
+                        <span>${stars} <i class="fas fa-star"></i></span>
+                        <div class="rating-bar-track">
+                            <div class="rating-bar-fill" style="width: ${(summary.stars[stars] / summary.reviewCount) * 100}%"></div>
+                        </div>
+                        <span>${summary.stars[stars]}</span>
+                    </div>
+                `).join('')}
+            </div>
+        `;
+    } catch (error) {
+        console.error('Error loading rating summary:', error);
+        container.innerHTML = '';
+    }
+};
+
 const createReviewCard = (review) => {
-    const initial = review.user.fullName.charAt(0).toUpperCase();
+    const initial = review.reviewerName.charAt(0).toUpperCase();
     const currentUser = auth.getCurrentUser();
-    const isMyReview = currentUser && review.user.id === currentUser.userId;
+    const isMyReview = currentUser && review.userId === currentUser.userId;
 
     return `
         <div class="review-card">
@@ -189,7 +266,7 @@ const createReviewCard = (review) => {
                 <div class="reviewer-info">
                     <div class="reviewer-avatar">${initial}</div>
                     <div class="reviewer-details">
-                        <h4>${review.user.fullName}</h4>
+                        <h4>${review.reviewerName}</h4>
                         <div class="review-date">${formatDate(review.createdAt)}</div>
                     </div>
                 </div>
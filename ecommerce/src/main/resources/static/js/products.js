@@ -137,7 +137,7 @@ window.applyMobileFilters = () => {
 };
 
 const createProductCard = (product) => {
-    const imageUrl = product.imageUrl || 'https://via.placeholder.com/300x300?text=No+Image';
+    const imageUrl = thumbnailUrl(product.imageUrl, 320) || 'https://via.placeholder.com/300x300?text=No+Image';
     const inStock = product.stock > 0;
 
     return `
@@ -151,7 +151,7 @@ const createProductCard = (product) => {
                 </div>
             </div>
             <div class="product-info">
-                <div class="product-category">${product.category?.name || 'Uncategorized'}</div>
+                <div class="product-category">${product.categoryName || 'Uncategorized'}</div>
                 <h3 class="product-name">${product.name}</h3>
                 <div class="product-rating">
                     <div class="stars">${generateStars(product.averageRating)}</div>
@@ -206,4 +206,30 @@ const setupSearch = () => {
             performSearch();
         }
     });
+
+    // Typeahead: lightweight completions instead of a full search per keystroke
+    const suggestions = document.createElement('datalist');
+    suggestions.id = 'searchSuggestions';
+    searchInput.after(suggestions);
+    searchInput.setAttribute('list', suggestions.id);
+    searchInput.setAttribute('autocomplete', 'off');
+
+    searchInput.addEventListener('input', debounce(async () => {
+        const prefix = searchInput.value.trim();
+        if (prefix.length < 2) {
+            suggestions.innerHTML = '';
+            return;
+        }
+        try {
+            const results = await api.suggestProducts(prefix);
+            // Built as elements so product names are never parsed as markup
+            suggestions.replaceChildren(...results.map(s => {
+                const option = document.createElement('option');
+                option.value = s.text;
+                return option;
+            }));
+        } catch (error) {
+            console.error('Error loading suggestions:', error);
+        }
+    }, 150));
 };
\ No newline at end of file
@@ -212,6 +212,11 @@ const goToProduct = (productId) => {
     window.location.href = `product-detail.html?id=${productId}`;
 };
 
+// Uploaded images come in several widths; grids ask for a thumbnail instead of the original
+const thumbnailUrl = (url, width) => {
+    return url && url.startsWith('/uploads/') ? `${url}?w=${width}` : url;
+};
+
 // Get URL parameter
 const getUrlParameter = (name) => {
     const urlParams = new URLSearchParams(window.location.search);
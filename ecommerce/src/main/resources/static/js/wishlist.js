@@ -44,7 +44,7 @@ const loadWishlist = async () => {
 
 const createWishlistCard = (item) => {
     const product = item.product;
-    const imageUrl = product.imageUrl || 'https://via.placeholder.com/300x300?text=No+Image';
+    const imageUrl = thumbnailUrl(product.imageUrl, 320) || 'https://via.placeholder.com/300x300?text=No+Image';
     const inStock = product.stock > 0;
 
     return `
@@ -0,0 +1,53 @@
+package com.sanjay.ecommerce.benchmark;
+
+import com.sanjay.ecommerce.service.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Cost of one id under contention: 8 threads share one generator, as request threads share the bean.
+//   uuid / uuidString       - UUID.randomUUID(), the old transaction id; every call draws from the shared SecureRandom
+//   snowflake / snowflakeCode - SnowflakeIdGenerator.nextId() and the base-36 form used for order numbers
+//
+// Run: mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+//        -Dexec.args="-cp %classpath org.openjdk.jmh.Main IdGeneratorBenchmark"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark {
+    private SnowflakeIdGenerator generator;
+
+    @Setup
+    public void setup() {
+        generator = new SnowflakeIdGenerator();
+        ReflectionTestUtils.setField(generator, "nodeId", 1L);
+        ReflectionTestUtils.setField(generator, "epoch", Instant.parse("2024-01-01T00:00:00Z"));
+        generator.init();
+    }
+
+    @Benchmark
+    public UUID uuid() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    public String uuidString() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public long snowflake() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    public String snowflakeCode() {
+        return generator.nextCode();
+    }
+}
@@ -0,0 +1,90 @@
+package com.sanjay.ecommerce.benchmark;
+
+import com.sanjay.ecommerce.model.User;
+import com.sanjay.ecommerce.security.JwtAuthFilter;
+import com.sanjay.ecommerce.security.JwtUtil;
+import com.sanjay.ecommerce.security.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Per-request cost of authenticating a bearer token.
+//   legacyTripleParse - the old JwtUtil path: new key and parser per call, token parsed three times
+//                       (extractUsername, validateToken -> extractUsername, extractExpiration);
+//                       the old filter's user lookup by email comes on top of this and is not included
+//   singleParse       - cached key/parser, one verification returning all claims
+//   filterCacheHit    - the whole JwtAuthFilter for a token it has verified before
+//
+// Run: mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+//        -Dexec.args="-cp %classpath org.openjdk.jmh.Main JwtAuthFilterBenchmark"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtAuthFilterBenchmark {
+    private static final String SECRET = "myVerySecretKeyThatIsAtLeast256BitsLongForHS256AlgorithmToWorkProperly";
+
+    private JwtUtil jwtUtil;
+    private JwtAuthFilter filter;
+    private String token;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+
+    @Setup
+    public void setup() throws Exception {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", TimeUnit.HOURS.toMillis(1));
+        jwtUtil.init();
+
+        VerifiedTokenCache cache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 10000);
+        // Tokens carry id and role, so the filter never reaches the repository
+        filter = new JwtAuthFilter(jwtUtil, cache, null);
+
+        token = jwtUtil.generateToken(User.builder().id(4L).email("u@x.com").role(User.Role.USER).build());
+        request = new MockHttpServletRequest("GET", "/api/cart");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> SecurityContextHolder.clearContext();
+        filter.doFilter(request, response, chain);
+    }
+
+    @Benchmark
+    public void legacyTripleParse(Blackhole blackhole) {
+        String username = legacyParse(token).getSubject();
+        boolean valid = username.equals(legacyParse(token).getSubject())
+                && !legacyParse(token).getExpiration().before(new Date());
+        blackhole.consume(valid);
+    }
+
+    @Benchmark
+    public Claims singleParse() {
+        return jwtUtil.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public void filterCacheHit() throws Exception {
+        filter.doFilter(request, response, chain);
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -0,0 +1,169 @@
+package com.sanjay.ecommerce.build;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// Build-time asset stage, run by Maven over target/classes/static once the test sources have
+// compiled; it lives among them so it never ships. Every JS and CSS file gets a content-hashed
+// copy with .gz and .br siblings, and the HTML pages are rewritten to reference the hashed names.
+// MvcConfig serves them as immutable resources.
+public final class AssetPipeline {
+    private static final int HASH_LENGTH = 10;
+    private static final List<String> ASSET_DIRECTORIES = List.of("js", "css");
+    private static final Pattern ASSET_NAME = Pattern.compile("([\\w-]+)(\\.[0-9a-f]{" + HASH_LENGTH + "})?\\.(js|css)");
+    private static final Pattern REFERENCE = Pattern.compile("((?:src|href)=\")([^\":?#]*/)?([\\w.-]+\\.(?:js|css))(?=[\"?#])");
+
+    private AssetPipeline() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path root = Paths.get(args.length > 0 ? args[0] : "target/classes/static").toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            System.out.println("No static assets under " + root);
+            return;
+        }
+        boolean brotli = brotliAvailable();
+
+        // Original asset path -> hashed file name
+        Map<Path, String> fingerprints = new HashMap<>();
+        for (String directory : ASSET_DIRECTORIES) {
+            Path dir = root.resolve(directory);
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            for (Path file : list(dir)) {
+                Matcher name = ASSET_NAME.matcher(file.getFileName().toString());
+                if (name.matches() && name.group(2) == null) {
+                    fingerprints.put(file, fingerprint(file, name.group(1), name.group(3), brotli));
+                }
+            }
+        }
+
+        int pages = 0;
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path page : files.filter(path -> path.toString().endsWith(".html")).toList()) {
+                if (rewrite(root, page, fingerprints)) {
+                    pages++;
+                }
+            }
+        }
+        System.out.printf("Fingerprinted %d assets (brotli %s), rewrote %d pages%n",
+                fingerprints.size(), brotli ? "on" : "off", pages);
+    }
+
+    private static String fingerprint(Path file, String baseName, String extension, boolean brotli) throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        String hashedName = baseName + "." + hash(content) + "." + extension;
+
+        // Drop outputs of earlier builds so only the current version can be served
+        for (Path sibling : list(file.getParent())) {
+            String siblingName = sibling.getFileName().toString();
+            Matcher name = ASSET_NAME.matcher(siblingName.replaceFirst("\\.(gz|br)$", ""));
+            if (name.matches() && name.group(2) != null && name.group(1).equals(baseName)
+                    && name.group(3).equals(extension) && !siblingName.startsWith(hashedName)) {
+                Files.delete(sibling);
+            }
+        }
+
+        Path hashed = file.resolveSibling(hashedName);
+        Files.write(hashed, content);
+        writeIfSmaller(hashed.resolveSibling(hashedName + ".gz"), gzip(content), content.length);
+        if (brotli) {
+            writeIfSmaller(hashed.resolveSibling(hashedName + ".br"), Encoder.compress(content, new Encoder.Parameters().setQuality(11)), content.length);
+        }
+        return hashedName;
+    }
+
+    // References are resolved against the page, so "js/api.js" and "../js/api.js" both match;
+    // already hashed references are re-pointed too, for pages left over from an earlier build
+    private static boolean rewrite(Path root, Path page, Map<Path, String> fingerprints) throws IOException {
+        String html = Files.readString(page, StandardCharsets.UTF_8);
+        Matcher reference = REFERENCE.matcher(html);
+        StringBuilder rewritten = new StringBuilder();
+        boolean changed = false;
+        while (reference.find()) {
+            String directory = reference.group(2) != null ? reference.group(2) : "";
+            Matcher name = ASSET_NAME.matcher(reference.group(3));
+            String replacement = reference.group();
+            if (name.matches()) {
+                Path base = directory.startsWith("/") ? root.resolve(directory.substring(1)) : page.getParent().resolve(directory);
+                String hashedName = fingerprints.get(base.resolve(name.group(1) + "." + name.group(3)).normalize());
+                if (hashedName != null && !hashedName.equals(reference.group(3))) {
+                    replacement = reference.group(1) + directory + hashedName;
+                    changed = true;
+                }
+            }
+            reference.appendReplacement(rewritten, Matcher.quoteReplacement(replacement));
+        }
+        reference.appendTail(rewritten);
+        if (changed) {
+            Files.writeString(page, rewritten, StandardCharsets.UTF_8);
+        }
+        return changed;
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files.filter(Files::isRegularFile).toList());
+        }
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(digest).substring(0, HASH_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(buffer) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(content);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static void writeIfSmaller(Path target, byte[] compressed, int originalLength) throws IOException {
+        if (compressed.length < originalLength) {
+            Files.write(target, compressed);
+        } else {
+            Files.deleteIfExists(target);
+        }
+    }
+
+    // The native encoder is only needed at build time; without it the stage still writes .gz
+    private static boolean brotliAvailable() {
+        try {
+            Brotli4jLoader.ensureAvailability();
+            return true;
+        } catch (Throwable e) {
+            System.out.println("Brotli encoder unavailable, skipping .br output: " + e.getMessage());
+            return false;
+        }
+    }
+}
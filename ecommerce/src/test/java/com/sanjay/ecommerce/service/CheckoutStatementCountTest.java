@@ -0,0 +1,223 @@
+package com.sanjay.ecommerce.service;
+
+import com.sanjay.ecommerce.dto.OrderDTO;
+import com.sanjay.ecommerce.model.Address;
+import com.sanjay.ecommerce.model.Order;
+import com.sanjay.ecommerce.model.Payment;
+import com.sanjay.ecommerce.model.Product;
+import com.sanjay.ecommerce.model.User;
+import com.sanjay.ecommerce.repository.AddressRepository;
+import com.sanjay.ecommerce.repository.ProductRepository;
+import com.sanjay.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Checkout must reach the database in the same number of statements whatever the cart size:
+// order items go out as one batch, stock is locked and written in one query and one batch, and
+// the cart is emptied by a single DELETE. Statements are counted at the JDBC level, so plain
+// JDBC repositories are included, and a batch counts once, as it is one round trip.
+@SpringBootTest(properties = "payment.simulator.success-rate=1")
+class CheckoutStatementCountTest {
+    // Sequence fetches vary with how much of the current block of 50 ids is left, so they are
+    // not counted against the limit
+    private static final int CHECKOUT_STATEMENTS = 11;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> productIds = new ArrayList<>();
+    private final List<Long> userIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() throws InterruptedException {
+        for (Long userId : userIds) {
+            // Let the payment pipeline settle the orders before removing them
+            for (int i = 0; i < 100 && jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM orders WHERE user_id = ? AND status = 'PENDING'", Integer.class, userId) > 0; i++) {
+                Thread.sleep(50);
+            }
+            jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (SELECT id FROM orders WHERE user_id = ?)", userId);
+            jdbcTemplate.update("DELETE FROM payments WHERE order_id IN (SELECT id FROM orders WHERE user_id = ?)", userId);
+            jdbcTemplate.update("DELETE FROM orders WHERE user_id = ?", userId);
+            jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id IN (SELECT id FROM carts WHERE user_id = ?)", userId);
+            jdbcTemplate.update("DELETE FROM carts WHERE user_id = ?", userId);
+            jdbcTemplate.update("DELETE FROM addresses WHERE user_id = ?", userId);
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        }
+        productRepository.deleteAllById(productIds);
+    }
+
+    @Test
+    void fiftyItemCartChecksOutInAFixedNumberOfStatements() {
+        List<String> single = checkout(1);
+        List<String> fifty = checkout(50);
+
+        assertEquals(CHECKOUT_STATEMENTS, withoutSequenceFetches(single).size(), () -> "1 item: " + single);
+        assertEquals(CHECKOUT_STATEMENTS, withoutSequenceFetches(fifty).size(), () -> "50 items: " + fifty);
+    }
+
+    // Fills a fresh user's cart with the given number of products and returns the statements the checkout ran
+    private List<String> checkout(int items) {
+        User user = new User();
+        user.setEmail("checkout-" + UUID.randomUUID() + "@test.local");
+        user.setPassword("x");
+        user.setFullName("Checkout Test");
+        user = userRepository.save(user);
+        userIds.add(user.getId());
+
+        Address address = new Address();
+        address.setUser(user);
+        address.setFullName("Checkout Test");
+        address.setPhone("1");
+        address.setAddressLine1("1 Test Street");
+        address.setCity("Test");
+        address.setState("Test");
+        address.setZipCode("1");
+        address.setCountry("Test");
+        address = addressRepository.save(address);
+
+        for (int i = 0; i < items; i++) {
+            Product product = new Product();
+            product.setName("Checkout test product " + UUID.randomUUID());
+            product.setPrice(BigDecimal.TEN);
+            product.setStock(10);
+            Long productId = productRepository.save(product).getId();
+            productIds.add(productId);
+            cartService.addToCart(user.getId(), productId, 1);
+        }
+
+        StatementRecorder.start();
+        OrderDTO order;
+        try {
+            order = orderService.placeOrder(user.getId(), address.getId(), Payment.PaymentMethod.UPI);
+        } finally {
+            StatementRecorder.stop();
+        }
+
+        assertEquals(items, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM order_items WHERE order_id = ?", Integer.class, order.getId()));
+        assertEquals(Order.OrderStatus.PENDING.name(), order.getStatus());
+        return StatementRecorder.recorded();
+    }
+
+    private static List<String> withoutSequenceFetches(List<String> statements) {
+        return statements.stream().filter(sql -> !sql.contains("nextval")).toList();
+    }
+
+    // Records the SQL of every statement executed on the recording thread; the payment
+    // pipeline's own thread is left out
+    static final class StatementRecorder {
+        private static final Set<String> EXECUTE = Set.of("execute", "executeQuery", "executeUpdate", "executeBatch",
+                "executeLargeUpdate", "executeLargeBatch");
+        private static volatile Thread recording;
+        private static final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+        static void start() {
+            statements.clear();
+            recording = Thread.currentThread();
+        }
+
+        static void stop() {
+            recording = null;
+        }
+
+        static List<String> recorded() {
+            return List.copyOf(statements);
+        }
+
+        static DataSource wrap(DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, (method, args, result) ->
+                    method.getName().equals("getConnection") ? wrap((Connection) result) : result);
+        }
+
+        private static Connection wrap(Connection connection) {
+            return proxy(Connection.class, connection, (method, args, result) -> {
+                if (result instanceof Statement statement) {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                    return wrap(statement, sql);
+                }
+                return result;
+            });
+        }
+
+        private static Statement wrap(Statement statement, String preparedSql) {
+            Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                    : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+            return (Statement) Proxy.newProxyInstance(StatementRecorder.class.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> {
+                        if (EXECUTE.contains(method.getName()) && recording == Thread.currentThread()) {
+                            String sql = preparedSql != null ? preparedSql : String.valueOf(args != null ? args[0] : null);
+                            statements.add(sql.replaceAll("\\s+", " ").trim());
+                        }
+                        return invoke(method, statement, args);
+                    });
+        }
+
+        private static <T> T proxy(Class<T> type, T target, ResultMapper mapper) {
+            return type.cast(Proxy.newProxyInstance(StatementRecorder.class.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> mapper.map(method, args, invoke(method, target, args))));
+        }
+
+        private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private interface ResultMapper {
+            Object map(Method method, Object[] args, Object result) throws Throwable;
+        }
+    }
+
+    @TestConfiguration
+    static class RecordingDataSourceConfig {
+        @Bean
+        static BeanPostProcessor recordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? StatementRecorder.wrap(dataSource) : bean;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.sanjay.ecommerce.service;
+
+import com.sanjay.ecommerce.model.Product;
+import com.sanjay.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Many checkouts racing for the same stock: every unit is sold exactly once and nothing deadlocks
+@SpringBootTest
+class InventoryServiceConcurrencyTest {
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 20;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Long> createdIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAllById(createdIds);
+    }
+
+    @Test
+    void hotProductIsNeverOversold() throws Exception {
+        Long hot = createProduct(100);
+
+        Result result = hammer(attempt -> Map.of(hot, 1));
+
+        assertTrue(result.errors.isEmpty(), () -> "Unexpected failures: " + result.errors);
+        assertEquals(100, result.successes.get());
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD - 100, result.shortfalls.get());
+        assertEquals(0, stockOf(hot));
+    }
+
+    @Test
+    void overlappingOrdersTakeAllOrNothingWithoutDeadlock() throws Exception {
+        Long first = createProduct(50);
+        Long second = createProduct(80);
+
+        // Half the orders list the products in the opposite order; the service must lock in id order regardless
+        Result result = hammer(attempt -> {
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
+            if (attempt % 2 == 0) {
+                quantities.put(first, 1);
+                quantities.put(second, 2);
+            } else {
+                quantities.put(second, 2);
+                quantities.put(first, 1);
+            }
+            return quantities;
+        });
+
+        assertTrue(result.errors.isEmpty(), () -> "Unexpected failures: " + result.errors);
+        assertEquals(40, result.successes.get());
+        assertEquals(10, stockOf(first));
+        assertEquals(0, stockOf(second));
+    }
+
+    private Result hammer(OrderSource orders) throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Result result = new Result();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    Map<Long, Integer> quantities = orders.next(thread * ATTEMPTS_PER_THREAD + i);
+                    try {
+                        transaction.executeWithoutResult(status -> inventoryService.reserveStock(quantities));
+                        result.successes.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        if (String.valueOf(e.getMessage()).startsWith("Insufficient stock")) {
+                            result.shortfalls.incrementAndGet();
+                        } else {
+                            result.errors.add(e.toString());
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        return result;
+    }
+
+    private Long createProduct(int stock) {
+        Product product = new Product();
+        product.setName("Stress test product " + UUID.randomUUID());
+        product.setPrice(BigDecimal.TEN);
+        product.setStock(stock);
+        Long id = productRepository.save(product).getId();
+        createdIds.add(id);
+        return id;
+    }
+
+    private int stockOf(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getStock();
+    }
+
+    private interface OrderSource {
+        Map<Long, Integer> next(int attempt);
+    }
+
+    private static class Result {
+        private final AtomicInteger successes = new AtomicInteger();
+        private final AtomicInteger shortfalls = new AtomicInteger();
+        private final Queue<String> errors = new ConcurrentLinkedQueue<>();
+    }
+}